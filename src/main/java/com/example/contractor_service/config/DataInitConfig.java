@@ -1,22 +1,34 @@
 package com.example.contractor_service.config;
 
 import com.example.contractor_service.util.DataLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * Конфигурационный класс для инициализации и загрузки данных в базу данных
  * при старте Spring-приложения.
  * Определяет {@link DataLoader} бины для различных таблиц, указывая
- * соответствующий CSV-файл и имя таблицы.
+ * соответствующий CSV-файл и имя таблицы. Загрузка выполняется после создания
+ * всех бинов (в том числе после миграций Liquibase), таблицы загружаются параллельно.
  *
  * @author sergeJAVA
  */
 @Configuration
 public class DataInitConfig {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataInitConfig.class);
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
@@ -56,4 +68,26 @@ public class DataInitConfig {
         return new DataLoader(jdbcTemplate, "org_form.csv", "org_form", false);
     }
 
+    /**
+     * Запускает все {@link DataLoader} параллельно, когда контекст полностью создан,
+     * и дожидается их завершения до старта веб-сервера.
+     *
+     * @param loaders Загрузчики справочных таблиц.
+     * @return Инициализатор справочных данных.
+     */
+    @Bean
+    public SmartInitializingSingleton dataLoaderRunner(ObjectProvider<DataLoader> loaders) {
+        return () -> {
+            long start = System.currentTimeMillis();
+            List<DataLoader> tables = loaders.orderedStream().toList();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                CompletableFuture.allOf(tables.stream()
+                                .map(loader -> CompletableFuture.runAsync(loader::loadData, executor))
+                                .toArray(CompletableFuture[]::new))
+                        .join();
+            }
+            LOGGER.info("Справочные данные ({} таблиц) загружены за {} мс", tables.size(), System.currentTimeMillis() - start);
+        };
+    }
+
 }
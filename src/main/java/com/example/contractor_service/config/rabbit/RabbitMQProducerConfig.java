@@ -9,12 +9,22 @@ import org.springframework.context.annotation.Configuration;
 @Configuration
 public class RabbitMQProducerConfig {
 
+    /**
+     * Конвертер с собственным маппером по умолчанию, как и раньше: даты в теле сообщения
+     * пишутся массивами, а не ISO-строками, как в REST API. Этим же конвертером сериализуется
+     * payload сообщений outbox, поэтому формат сообщений для потребителей не меняется.
+     */
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public Jackson2JsonMessageConverter jackson2JsonMessageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+
+    @Bean
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, Jackson2JsonMessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setExchange("contractors_contractor_exchange");
         template.setRoutingKey("contractor.update");
-        template.setMessageConverter(new Jackson2JsonMessageConverter());
+        template.setMessageConverter(messageConverter);
         return template;
     }
 
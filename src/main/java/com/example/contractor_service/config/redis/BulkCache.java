@@ -0,0 +1,26 @@
+package com.example.contractor_service.config.redis;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Кеш, умеющий читать и записывать несколько записей за одно обращение к хранилищу.
+ */
+public interface BulkCache {
+
+    /**
+     * Возвращает найденные в кеше значения.
+     *
+     * @param keys ключи записей
+     * @return значения по исходным ключам; отсутствующих в кеше ключей в результате нет
+     */
+    Map<Object, Object> getAll(Collection<?> keys);
+
+    /**
+     * Записывает значения в кеш одной пачкой.
+     *
+     * @param entries значения по ключам
+     */
+    void putAll(Map<?, ?> entries);
+
+}
@@ -0,0 +1,12 @@
+package com.example.contractor_service.config.redis;
+
+/**
+ * Событие приложения об изменении кеша на этом или другом экземпляре сервиса.
+ *
+ * @param cacheName имя кеша
+ * @param key       строковый ключ или {@code null}, если изменено несколько ключей или кеш очищен целиком
+ * @param remote    {@code true}, если изменение пришло от другого экземпляра
+ */
+public record CacheInvalidatedEvent(String cacheName, String key, boolean remote) {
+
+}
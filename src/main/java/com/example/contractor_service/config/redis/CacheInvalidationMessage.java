@@ -0,0 +1,35 @@
+package com.example.contractor_service.config.redis;
+
+import java.util.List;
+
+/**
+ * Уведомление об изменении кеша, рассылаемое через Redis pub/sub.
+ * <p>
+ * Изменённые ключи перечисляются в {@code keys}. Поле {@code key} заполняется только при изменении одного
+ * ключа: экземпляры, не знающие {@code keys}, получив уведомление о нескольких ключах, очищают весь L1.
+ * </p>
+ *
+ * @param origin    идентификатор экземпляра, изменившего кеш
+ * @param cacheName имя кеша
+ * @param key       строковый ключ или {@code null}, если изменено несколько ключей или кеш очищен целиком
+ * @param keys      строковые ключи или {@code null}, если кеш очищен целиком
+ */
+public record CacheInvalidationMessage(String origin, String cacheName, String key, List<String> keys) {
+
+    public CacheInvalidationMessage(String origin, String cacheName, String key) {
+        this(origin, cacheName, key, key != null ? List.of(key) : null);
+    }
+
+    /**
+     * Изменённые ключи с учётом уведомлений, в которых заполнен только {@code key}.
+     *
+     * @return строковые ключи или {@code null}, если кеш очищен целиком
+     */
+    public List<String> changedKeys() {
+        if (keys != null) {
+            return keys;
+        }
+        return key != null ? List.of(key) : null;
+    }
+
+}
@@ -1,22 +1,31 @@
 package com.example.contractor_service.config.redis;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.interceptor.CacheResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 
 import java.time.Duration;
 
 @Configuration
-public class RedisConfig {
+public class RedisConfig implements CachingConfigurer {
 
     @Value("${redis.host}")
     private String redisHost;
@@ -27,9 +36,30 @@ public class RedisConfig {
     @Value("${redis.password}")
     private String redisPassword;
 
+    @Value("${cache.local.max-size:1000}")
+    private long localCacheMaxSize;
+
+    @Value("${cache.local.ttl:5m}")
+    private Duration localCacheTtl;
+
+    @Value("${cache.invalidation.channel:cache-invalidation}")
+    private String invalidationChannel;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private ObjectProvider<TwoLevelCacheManager> twoLevelCacheManager;
+
+    /**
+     * Резолвер кешей для аннотаций кеширования: заполнение по промаху {@code @Cacheable} не рассылается
+     * другим экземплярам, см. {@link TwoLevelCacheResolver}.
+     */
+    @Override
+    public CacheResolver cacheResolver() {
+        return new TwoLevelCacheResolver(twoLevelCacheManager.getObject());
+    }
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration();
@@ -54,4 +84,27 @@ public class RedisConfig {
                 .build();
     }
 
+    /**
+     * Основной менеджер кешей: локальный Caffeine перед кешами Redis из {@link #cacheConfiguration}.
+     */
+    @Bean
+    @Primary
+    public TwoLevelCacheManager cacheManager(RedisCacheManager redisCacheManager, StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher) {
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, objectMapper, meterRegistry, eventPublisher,
+                invalidationChannel, localCacheMaxSize, localCacheTtl);
+    }
+
+    /**
+     * Подписка на уведомления других экземпляров об изменении кешей.
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+
 }
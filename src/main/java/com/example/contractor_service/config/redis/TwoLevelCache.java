@@ -0,0 +1,333 @@
+package com.example.contractor_service.config.redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Двухуровневый кеш: локальный Caffeine (L1) перед общим Redis (L2).
+ * <p>
+ * Чтение сначала обращается к L1 и только при промахе идёт в Redis; найденное в Redis значение
+ * копируется в L1. Любая запись, удаление или очистка применяются к обоим уровням и рассылаются
+ * другим экземплярам сервиса, чтобы те сбросили свою копию в L1. Пакетная запись рассылается одним
+ * уведомлением со всеми ключами, а {@code null} вместо списка ключей означает очистку всего кеша.
+ * </p>
+ * <p>
+ * Значение, загруженное из источника по промаху, данных не меняет, поэтому такие записи идут через
+ * представление {@link #fills()}: оно работает с теми же уровнями, но запись не рассылает.
+ * </p>
+ * <p>
+ * Для каждого уровня публикуются счётчик {@code cache.level.gets} с тегом {@code result=hit|miss}
+ * и таймер {@code cache.level.latency}; оба помечены тегами {@code cache} и {@code level}.
+ * </p>
+ * <p>
+ * Пакетные операции {@link BulkCache} читают промахи L1 из Redis одной командой {@code MGET}
+ * и записывают значения конвейером {@code SET} с тем же временем жизни, что и у обычной записи.
+ * </p>
+ */
+public class TwoLevelCache implements Cache, BulkCache {
+
+    static final String GETS_METRIC = "cache.level.gets";
+    static final String LATENCY_METRIC = "cache.level.latency";
+
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final StringRedisTemplate redisTemplate;
+    private final Consumer<List<String>> invalidationPublisher;
+    private final boolean publishPuts;
+    private final TwoLevelCache fills;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Timer localLatency;
+    private final Timer remoteLatency;
+
+    public TwoLevelCache(String name, Cache remote, com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                         StringRedisTemplate redisTemplate, Consumer<List<String>> invalidationPublisher, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.redisTemplate = redisTemplate;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localHits = counter(meterRegistry, "l1", "hit");
+        this.localMisses = counter(meterRegistry, "l1", "miss");
+        this.remoteHits = counter(meterRegistry, "l2", "hit");
+        this.remoteMisses = counter(meterRegistry, "l2", "miss");
+        this.localLatency = timer(meterRegistry, "l1");
+        this.remoteLatency = timer(meterRegistry, "l2");
+        this.publishPuts = true;
+        this.fills = new TwoLevelCache(this);
+    }
+
+    private TwoLevelCache(TwoLevelCache source) {
+        this.name = source.name;
+        this.remote = source.remote;
+        this.local = source.local;
+        this.redisTemplate = source.redisTemplate;
+        this.invalidationPublisher = source.invalidationPublisher;
+        this.localHits = source.localHits;
+        this.localMisses = source.localMisses;
+        this.remoteHits = source.remoteHits;
+        this.remoteMisses = source.remoteMisses;
+        this.localLatency = source.localLatency;
+        this.remoteLatency = source.remoteLatency;
+        this.publishPuts = false;
+        this.fills = this;
+    }
+
+    /**
+     * Возвращает представление для заполнения кеша значениями, загруженными по промаху.
+     * <p>
+     * Представление разделяет с этим кешем оба уровня и метрики, но записи через {@link #put},
+     * {@link #putIfAbsent} и {@link #putAll} не рассылает. Удаление и очистка рассылаются как обычно.
+     * </p>
+     */
+    public TwoLevelCache fills() {
+        return fills;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper cached = localLatency.record(() -> local.getIfPresent(localKey));
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        localMisses.increment();
+
+        ValueWrapper loaded = remoteLatency.record(() -> remote.get(key));
+        if (loaded == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        local.put(localKey, loaded);
+        return loaded;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value = remote.get(key, valueLoader);
+        if (value != null) {
+            local.put(localKey(key), new SimpleValueWrapper(value));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        if (value != null) {
+            local.put(localKey, new SimpleValueWrapper(value));
+        } else {
+            local.invalidate(localKey);
+        }
+        if (publishPuts) {
+            invalidationPublisher.accept(List.of(localKey));
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        if (existing == null && publishPuts) {
+            invalidationPublisher.accept(List.of(localKey));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationPublisher.accept(List.of(localKey));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    @Override
+    public Map<Object, Object> getAll(Collection<?> keys) {
+        Map<Object, Object> found = new LinkedHashMap<>();
+        List<Object> missing = new ArrayList<>();
+        for (Object key : keys) {
+            ValueWrapper cached = localLatency.record(() -> local.getIfPresent(localKey(key)));
+            if (cached != null) {
+                localHits.increment();
+                found.put(key, cached.get());
+            } else {
+                localMisses.increment();
+                missing.add(key);
+            }
+        }
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        Map<Object, Object> loaded = remoteLatency.record(() -> remoteGetAll(missing));
+        remoteHits.increment(loaded.size());
+        remoteMisses.increment(missing.size() - loaded.size());
+        loaded.forEach((key, value) -> local.put(localKey(key), new SimpleValueWrapper(value)));
+        found.putAll(loaded);
+        return found;
+    }
+
+    @Override
+    public void putAll(Map<?, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        if (remote instanceof RedisCache redisCache) {
+            RedisCacheConfiguration configuration = redisCache.getCacheConfiguration();
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                entries.forEach((key, value) -> {
+                    byte[] rawValue = ByteUtils.getBytes(configuration.getValueSerializationPair().write(value));
+                    Duration ttl = configuration.getTtlFunction().getTimeToLive(key, value);
+                    if (ttl != null && ttl.isPositive()) {
+                        connection.stringCommands().set(redisKey(configuration, key), rawValue,
+                                Expiration.from(ttl), RedisStringCommands.SetOption.upsert());
+                    } else {
+                        connection.stringCommands().set(redisKey(configuration, key), rawValue);
+                    }
+                });
+                return null;
+            });
+        } else {
+            entries.forEach(remote::put);
+        }
+        List<String> localKeys = new ArrayList<>(entries.size());
+        entries.forEach((key, value) -> {
+            String localKey = localKey(key);
+            local.put(localKey, new SimpleValueWrapper(value));
+            localKeys.add(localKey);
+        });
+        if (publishPuts) {
+            invalidationPublisher.accept(localKeys);
+        }
+    }
+
+    /**
+     * Сбрасывает только локальный уровень по уведомлению другого экземпляра.
+     *
+     * @param keys строковые ключи или {@code null} для очистки всего L1
+     */
+    void evictLocal(Collection<String> keys) {
+        if (keys == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidateAll(keys);
+        }
+    }
+
+    private Map<Object, Object> remoteGetAll(List<Object> keys) {
+        Map<Object, Object> loaded = new LinkedHashMap<>();
+        if (!(remote instanceof RedisCache redisCache)) {
+            for (Object key : keys) {
+                ValueWrapper wrapper = remote.get(key);
+                if (wrapper != null) {
+                    loaded.put(key, wrapper.get());
+                }
+            }
+            return loaded;
+        }
+
+        RedisCacheConfiguration configuration = redisCache.getCacheConfiguration();
+        byte[][] rawKeys = keys.stream()
+                .map(key -> redisKey(configuration, key))
+                .toArray(byte[][]::new);
+        List<byte[]> rawValues = redisTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.stringCommands().mGet(rawKeys));
+        if (rawValues == null) {
+            return loaded;
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            byte[] rawValue = rawValues.get(i);
+            if (rawValue != null) {
+                loaded.put(keys.get(i), configuration.getValueSerializationPair().read(ByteBuffer.wrap(rawValue)));
+            }
+        }
+        return loaded;
+    }
+
+    private byte[] redisKey(RedisCacheConfiguration configuration, Object key) {
+        return (configuration.getKeyPrefixFor(name) + localKey(key)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter counter(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder(GETS_METRIC)
+                .tag("cache", name)
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Timer timer(MeterRegistry meterRegistry, String level) {
+        return Timer.builder(LATENCY_METRIC)
+                .tag("cache", name)
+                .tag("level", level)
+                .register(meterRegistry);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.example.contractor_service.config.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Менеджер кешей, добавляющий локальный уровень Caffeine перед кешами Redis.
+ * <p>
+ * Каждый кеш из {@code remoteCacheManager} оборачивается в {@link TwoLevelCache} с ограничением
+ * размера {@code maxSize} и временем жизни {@code ttl} записи в L1. Изменения кеша публикуются
+ * в канал {@code channel}; получив уведомление от другого экземпляра, менеджер сбрасывает
+ * соответствующие записи в L1. Собственные уведомления распознаются по идентификатору экземпляра
+ * и пропускаются. Если уведомление потеряно, устаревшая копия живёт в L1 не дольше {@code ttl}.
+ * </p>
+ * <p>
+ * О каждом изменении, локальном или пришедшем от другого экземпляра, публикуется
+ * {@link CacheInvalidatedEvent}, чтобы производные от кешируемых данных структуры могли обновиться.
+ * Заполнение кеша по промаху изменением не считается: {@link TwoLevelCacheResolver} направляет
+ * записи {@code @Cacheable} в {@link TwoLevelCache#fills()}.
+ * </p>
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remoteCacheManager;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String channel;
+    private final long maxSize;
+    private final Duration ttl;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager, StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry, ApplicationEventPublisher eventPublisher,
+                                String channel, long maxSize, Duration ttl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.eventPublisher = eventPublisher;
+        this.channel = channel;
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> new TwoLevelCache(cacheName, remote,
+                Caffeine.newBuilder()
+                        .maximumSize(maxSize)
+                        .expireAfterWrite(ttl)
+                        .build(),
+                redisTemplate, keys -> publish(cacheName, keys), meterRegistry));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        CacheInvalidationMessage invalidation;
+        try {
+            invalidation = objectMapper.readValue(message.getBody(), CacheInvalidationMessage.class);
+        } catch (IOException e) {
+            log.warn("Skipping malformed cache invalidation message", e);
+            return;
+        }
+        if (instanceId.equals(invalidation.origin())) {
+            return;
+        }
+        List<String> keys = invalidation.changedKeys();
+        TwoLevelCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            log.debug("Evicting local cache {} keys {} on remote invalidation", invalidation.cacheName(), keys);
+            cache.evictLocal(keys);
+        }
+        eventPublisher.publishEvent(new CacheInvalidatedEvent(invalidation.cacheName(), singleKey(keys), true));
+    }
+
+    private void publish(String cacheName, List<String> keys) {
+        String key = singleKey(keys);
+        eventPublisher.publishEvent(new CacheInvalidatedEvent(cacheName, key, false));
+        try {
+            String payload = objectMapper.writeValueAsString(new CacheInvalidationMessage(instanceId, cacheName, key, keys));
+            redisTemplate.convertAndSend(channel, payload);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to publish invalidation for cache {} keys {}", cacheName, keys, e);
+        }
+    }
+
+    private static String singleKey(List<String> keys) {
+        return keys != null && keys.size() == 1 ? keys.get(0) : null;
+    }
+
+}
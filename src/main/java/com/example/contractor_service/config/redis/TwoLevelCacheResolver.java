@@ -0,0 +1,36 @@
+package com.example.contractor_service.config.redis;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.CacheOperationInvocationContext;
+import org.springframework.cache.interceptor.CacheableOperation;
+import org.springframework.cache.interceptor.SimpleCacheResolver;
+
+import java.util.Collection;
+
+/**
+ * Резолвер кешей для аннотаций кеширования.
+ * <p>
+ * Для {@code @Cacheable} вместо {@link TwoLevelCache} отдаётся его представление {@link TwoLevelCache#fills()}:
+ * значение, загруженное по промаху, записывается в оба уровня, но другим экземплярам не рассылается.
+ * {@code @CachePut} и {@code @CacheEvict} получают сам кеш и рассылают изменения как обычно.
+ * </p>
+ */
+public class TwoLevelCacheResolver extends SimpleCacheResolver {
+
+    public TwoLevelCacheResolver(CacheManager cacheManager) {
+        super(cacheManager);
+    }
+
+    @Override
+    public Collection<? extends Cache> resolveCaches(CacheOperationInvocationContext<?> context) {
+        Collection<? extends Cache> caches = super.resolveCaches(context);
+        if (!(context.getOperation() instanceof CacheableOperation)) {
+            return caches;
+        }
+        return caches.stream()
+                .<Cache>map(cache -> cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache.fills() : cache)
+                .toList();
+    }
+
+}
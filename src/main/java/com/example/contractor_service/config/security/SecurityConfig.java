@@ -4,6 +4,8 @@ import com.example.contractor_service.config.filter.JwtRequestFilter;
 import com.example.contractor_service.entryPoint.CustomAccessDeniedHandler;
 import com.example.contractor_service.entryPoint.CustomAuthenticationEntryPoint;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -33,6 +35,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(request ->
                         request
                                 .requestMatchers("/ui/**").authenticated()
+                                .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("SUPERUSER")
                                 .anyRequest().permitAll())
                 .csrf(AbstractHttpConfigurer::disable)
                 .headers(headersConfigurer ->
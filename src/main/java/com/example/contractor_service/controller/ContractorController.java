@@ -1,10 +1,18 @@
 package com.example.contractor_service.controller;
 
+import com.example.contractor_service.model.BulkSaveResult;
 import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.ContractorSaveResult;
+import com.example.contractor_service.model.ExportFormat;
 import com.example.contractor_service.model.SearchRequest;
 import com.example.contractor_service.model.SearchResponse;
 import com.example.contractor_service.service.ContractorService;
-import com.example.contractor_service.service.outbox.OutboxMessageService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,19 +20,26 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 /**
  * REST контроллер для управления сущностью "contractor".
@@ -40,7 +55,7 @@ import java.util.Optional;
 public class ContractorController {
 
     private final ContractorService contractorService;
-    private final OutboxMessageService outboxMessageService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Получить всех контрагентов",
             description = "Возвращает список всех активных контрагентов со всей связанной информацией")
@@ -51,6 +66,60 @@ public class ContractorController {
         return ResponseEntity.ok(contractorService.findAll());
     }
 
+    @Operation(summary = "Выгрузить всех контрагентов потоком",
+            description = "Возвращает всех активных контрагентов в формате NDJSON (один JSON-объект на строку). " +
+                    "Записи отправляются по мере чтения из базы, поэтому объём выгрузки не ограничен памятью сервиса")
+    @ApiResponse(responseCode = "200", description = "Выгрузка контрагентов начата",
+            content = @Content(mediaType = "application/x-ndjson"))
+    @GetMapping(value = "/all/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        ObjectWriter writer = objectMapper.writerFor(Contractor.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                contractorService.streamAll(contractor -> {
+                    try {
+                        writer.writeValue(generator, contractor);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Выгрузить найденных контрагентов",
+            description = "Выгружает всех активных контрагентов, подходящих под фильтры (те же, что и в поиске), " +
+                    "в формате CSV (разделитель ';', с заголовком) или NDJSON. Данные передаются из PostgreSQL " +
+                    "через COPY TO STDOUT напрямую в ответ, поэтому объём выгрузки не ограничен памятью сервиса")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Выгрузка начата",
+                    content = {@Content(mediaType = "text/csv"), @Content(mediaType = "application/x-ndjson")}),
+            @ApiResponse(responseCode = "400", description = "Неподдерживаемый формат выгрузки",
+                    content = @Content)
+    })
+    @PostMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestBody(required = false) Map<String, String> filters,
+                                                        @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromValue(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null);
+        }
+
+        StreamingResponseBody body = outputStream -> contractorService.export(filters, exportFormat, outputStream);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=contractors." + exportFormat.getExtension())
+                .body(body);
+    }
+
     @Operation(summary = "Получить контрагента по ID", description = "Возвращает информацию о контрагенте по его уникальному идентификатору, включая связанные данные.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Контрагент успешно найден",
@@ -81,21 +150,41 @@ public class ContractorController {
             return ResponseEntity.badRequest().body(null); // ID должен быть предоставлен
         }
 
-        Optional<Contractor> existingContractor = contractorService.findById(contractor.getId());
-
-        Contractor savedContractor = contractorService.save(contractor);
-
-        Optional<Contractor> updated = contractorService.findById(savedContractor.getId());
+        ContractorSaveResult saved = contractorService.save(contractor);
 
-        updated.ifPresent(outboxMessageService::saveContractor);
+        return new ResponseEntity<>(saved.getContractor(), saved.isCreated() ? HttpStatus.CREATED : HttpStatus.OK);
+    }
 
-        if (existingContractor.isEmpty()) {
-            return new ResponseEntity<>(savedContractor, HttpStatus.CREATED);
-        } else {
-            return ResponseEntity.ok(savedContractor);
+    @Operation(summary = "Массово сохранить контрагентов", description = "Создает или обновляет контрагентов из JSON-массива " +
+            "или потока NDJSON порциями. Для каждой порции выполняется один запрос к базе и пакетная запись в outbox. " +
+            "Записи без ID или с ошибками учитываются как не сохранённые и не прерывают обработку")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Контрагенты обработаны",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkSaveResult.class))),
+            @ApiResponse(responseCode = "400", description = "Тело запроса не является JSON-массивом или NDJSON; " +
+                    "порции, обработанные до ошибки, остаются сохранёнными",
+                    content = @Content)
+    })
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkSaveResult> bulkSaveContractors(InputStream body) {
+        try (MappingIterator<Contractor> contractors = objectMapper.readerFor(Contractor.class).readValues(body)) {
+            return ResponseEntity.ok(contractorService.bulkSave(contractors, null));
+        } catch (IOException | RuntimeJsonMappingException e) {
+            return ResponseEntity.badRequest().body(null);
         }
     }
 
+    @Operation(summary = "Импортировать контрагентов из CSV", description = "Загружает контрагентов из CSV с разделителем ';' " +
+            "и строкой заголовка (колонки: id;parent_id;name;name_full;inn;ogrn;country;industry;org_form). " +
+            "Файл передаётся в базу потоком через COPY и сохраняется одним запросом вместе с событиями outbox. " +
+            "Некорректные строки и строки со ссылками на несуществующие записи учитываются как не сохранённые")
+    @ApiResponse(responseCode = "200", description = "Импорт выполнен",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkSaveResult.class)))
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<BulkSaveResult> importContractors(InputStream body) {
+        return ResponseEntity.ok(contractorService.importCsv(body, null));
+    }
+
     @Operation(summary = "Логически удалить контрагента", description = "Устанавливает флаг 'is_active' контрагента в FALSE, сохраняя запись в базе данных.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Контрагент успешно удален (логически)"),
@@ -112,10 +201,14 @@ public class ContractorController {
         }
     }
 
-    @Operation(summary = "Поиск контрагентов", description = "Ищет активных контрагентов по заданным фильтрам с поддержкой пагинации.")
+    @Operation(summary = "Поиск контрагентов", description = "Ищет активных контрагентов по заданным фильтрам с поддержкой пагинации. " +
+            "Для глубоких страниц передайте в поле 'after' значение 'nextCursor' из предыдущего ответа. " +
+            "Поле 'totalMode' (none, exact, estimate) управляет подсчётом общего количества.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список контрагентов успешно возвращен",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResponse.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Неверный курсор пагинации",
+                    content = @Content)
     })
     @PostMapping("/search")
     public ResponseEntity<SearchResponse> searchContractors(@RequestBody SearchRequest request) {
@@ -123,11 +216,11 @@ public class ContractorController {
         int page = Math.max(0, request.getPage()); // Минимум 0
         int size = Math.max(1, request.getSize()); // Минимум 1
 
-        List<Contractor> contractors = contractorService.search(request.getFilters(), page, size);
-        int totalElements = contractorService.countSearch(request.getFilters());
-
-        SearchResponse response = new SearchResponse(contractors, page, size, totalElements);
-        return ResponseEntity.ok(response);
+        try {
+            return ResponseEntity.ok(contractorService.searchPage(request.getFilters(), page, size, request.getAfter(), request.getTotalMode()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null); // Повреждённый курсор
+        }
     }
 
 }
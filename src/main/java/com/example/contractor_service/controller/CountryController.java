@@ -12,6 +12,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -60,6 +61,17 @@ public class CountryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Получить страны по списку ID", description = "Возвращает страны по переданным идентификаторам " +
+            "в том же порядке. Неизвестные идентификаторы пропускаются.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список стран успешно возвращен",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Country.class)))
+    })
+    @GetMapping("/by-ids")
+    public ResponseEntity<List<Country>> getCountriesByIds(@RequestParam List<String> ids) {
+        return ResponseEntity.ok(service.findByIds(ids));
+    }
+
     @Operation(summary = "Сохранить или обновить страну", description = "Создает новую страну или обновляет существующую.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Страна успешно сохранена/обновлена",
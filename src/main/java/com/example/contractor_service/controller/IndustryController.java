@@ -13,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -58,6 +59,17 @@ public class IndustryController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Получить индустрии по списку ID", description = "Возвращает индустрии по переданным идентификаторам " +
+            "в том же порядке. Неизвестные идентификаторы пропускаются.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список индустрий успешно возвращен",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Industry.class)))
+    })
+    @GetMapping("/by-ids")
+    public ResponseEntity<List<Industry>> getIndustriesByIds(@RequestParam List<Integer> ids) {
+        return ResponseEntity.ok(industryService.findByIds(ids));
+    }
+
     @Operation(summary = "Сохранить или обновить индустрию", description = "Создает новую индустрию или обновляет существующую.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Индустрия успешно сохранена/обновлена",
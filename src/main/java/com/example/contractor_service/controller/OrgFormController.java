@@ -13,6 +13,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -58,6 +59,17 @@ public class OrgFormController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    @Operation(summary = "Получить организационные формы по списку ID", description = "Возвращает организационные формы по переданным идентификаторам " +
+            "в том же порядке. Неизвестные идентификаторы пропускаются.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список организационных форм успешно возвращен",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = OrgForm.class)))
+    })
+    @GetMapping("/by-ids")
+    public ResponseEntity<List<OrgForm>> getOrgFormsByIds(@RequestParam List<Integer> ids) {
+        return ResponseEntity.ok(orgFormService.findByIds(ids));
+    }
+
     @Operation(summary = "Сохранить или обновить организационную форму", description = "Создает новую организационную форму или обновляет существующую.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Организационная форма успешно сохранена/обновлена",
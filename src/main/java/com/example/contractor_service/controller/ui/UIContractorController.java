@@ -1,12 +1,16 @@
 package com.example.contractor_service.controller.ui;
 
+import com.example.contractor_service.model.BulkSaveResult;
 import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.ContractorSaveResult;
 import com.example.contractor_service.model.SearchRequest;
 import com.example.contractor_service.model.SearchResponse;
 import com.example.contractor_service.model.security.TokenAuthentication;
 import com.example.contractor_service.model.security.TokenData;
 import com.example.contractor_service.service.ContractorService;
-import com.example.contractor_service.service.outbox.OutboxMessageService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -15,6 +19,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -28,10 +33,11 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/ui/contractor")
@@ -40,7 +46,7 @@ import java.util.Optional;
 public class UIContractorController {
 
     private final ContractorService contractorService;
-    private final OutboxMessageService outboxMessageService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Получить всех контрагентов",
             description = "Возвращает список всех активных контрагентов со всей связанной информацией")
@@ -89,17 +95,30 @@ public class UIContractorController {
             return ResponseEntity.badRequest().body(null); // ID должен быть предоставлен
         }
 
-        Optional<Contractor> existingContractor = contractorService.findById(contractor.getId());
+        ContractorSaveResult saved = contractorService.save(contractor, tokenData.getId());
 
-        Contractor savedContractor = contractorService.save(contractor, tokenData.getId());
+        return new ResponseEntity<>(saved.getContractor(), saved.isCreated() ? HttpStatus.CREATED : HttpStatus.OK);
+    }
 
-        Optional<Contractor> updated = contractorService.findById(savedContractor.getId());
-        updated.ifPresent(outboxMessageService::saveContractor);
+    @Operation(summary = "Массово сохранить контрагентов", description = "Создает или обновляет контрагентов из JSON-массива " +
+            "или потока NDJSON порциями от имени текущего пользователя. Записи без ID или с ошибками учитываются " +
+            "как не сохранённые и не прерывают обработку. Требуемые роли: SUPERUSER, CONTRACTOR_SUPERUSER")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Контрагенты обработаны",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkSaveResult.class))),
+            @ApiResponse(responseCode = "400", description = "Тело запроса не является JSON-массивом или NDJSON; " +
+                    "порции, обработанные до ошибки, остаются сохранёнными",
+                    content = @Content)
+    })
+    @PutMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAnyRole('SUPERUSER', 'CONTRACTOR_SUPERUSER')")
+    public ResponseEntity<BulkSaveResult> bulkSaveContractors(InputStream body, Authentication authentication) {
+        TokenData tokenData = ((TokenAuthentication) authentication).getTokenData();
 
-        if (existingContractor.isEmpty()) {
-            return new ResponseEntity<>(savedContractor, HttpStatus.CREATED);
-        } else {
-            return ResponseEntity.ok(savedContractor);
+        try (MappingIterator<Contractor> contractors = objectMapper.readerFor(Contractor.class).readValues(body)) {
+            return ResponseEntity.ok(contractorService.bulkSave(contractors, tokenData.getId()));
+        } catch (IOException | RuntimeJsonMappingException e) {
+            return ResponseEntity.badRequest().body(null);
         }
     }
 
@@ -122,10 +141,14 @@ public class UIContractorController {
     }
 
     @Operation(summary = "Поиск контрагентов", description = "Ищет активных контрагентов по заданным фильтрам с поддержкой пагинации. " +
+            "Для глубоких страниц передайте в поле 'after' значение 'nextCursor' из предыдущего ответа. " +
+            "Поле 'totalMode' (none, exact, estimate) управляет подсчётом общего количества. " +
             "Требуемые роли: SUPERUSER, CONTRACTOR_SUPERUSER, CONTRACTOR_RUS")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Список контрагентов успешно возвращен",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResponse.class)))
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = SearchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Недопустимые фильтры для роли или неверный курсор пагинации",
+                    content = @Content)
     })
     @PostMapping("/search")
     @PreAuthorize("hasAnyRole('SUPERUSER', 'CONTRACTOR_SUPERUSER', 'CONTRACTOR_RUS')")
@@ -143,22 +166,17 @@ public class UIContractorController {
 
         Map<String, String> filters = request.getFilters() != null ? request.getFilters() : new HashMap<>();
 
-        if (roles.contains("SUPERUSER") || roles.contains("CONTRACTOR_SUPERUSER")) {
-            List<Contractor> contractors = contractorService.search(filters, page, size);
-            int totalElements = contractorService.countSearch(filters);
-
-            return ResponseEntity.ok(new SearchResponse(contractors, page, size, totalElements));
-        }
-
         // Проверка для CONTRACTOR_RUS
-        if (filters.size() != 1 || !("RUS".equals(filters.get("countryId")))) {
+        if (!roles.contains("SUPERUSER") && !roles.contains("CONTRACTOR_SUPERUSER")
+                && (filters.size() != 1 || !("RUS".equals(filters.get("countryId"))))) {
             return ResponseEntity.badRequest().body(null);
         }
 
-        List<Contractor> contractors = contractorService.search(filters, page, size);
-        int totalElements = contractorService.countSearch(filters);
-
-        return ResponseEntity.ok(new SearchResponse(contractors, page, size, totalElements));
+        try {
+            return ResponseEntity.ok(contractorService.searchPage(filters, page, size, request.getAfter(), request.getTotalMode()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(null); // Повреждённый курсор
+        }
     }
 
 }
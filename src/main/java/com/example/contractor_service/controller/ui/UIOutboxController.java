@@ -0,0 +1,43 @@
+package com.example.contractor_service.controller.ui;
+
+import com.example.contractor_service.service.outbox.OutboxMessageService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/ui/outbox")
+@RequiredArgsConstructor
+@Tag(name = "Outbox с аутентификацией", description = "API для администрирования очереди исходящих сообщений, требует аутентификации")
+public class UIOutboxController {
+
+    private final OutboxMessageService outboxMessageService;
+
+    @Operation(summary = "Повторно отправить сообщения из DEAD_LETTER", description = "Возвращает в очередь сообщения, " +
+            "исчерпавшие попытки отправки, со сброшенным счётчиком попыток. Если тело запроса не передано " +
+            "или список пуст, в очередь возвращаются все такие сообщения. Сообщения, у контрагента которых " +
+            "есть более новое сообщение, не отправляются и переводятся в статус SUPERSEDED. Требуемые роли: SUPERUSER")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Количество сообщений, возвращённых в очередь",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = Integer.class)))
+    })
+    @PostMapping("/dead-letters/replay")
+    @PreAuthorize("hasRole('SUPERUSER')")
+    public ResponseEntity<Integer> replayDeadLetters(@RequestBody(required = false) List<UUID> messageIds) {
+        return ResponseEntity.ok(outboxMessageService.replayDeadLetters(messageIds));
+    }
+
+}
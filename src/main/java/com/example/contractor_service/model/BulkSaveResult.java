@@ -0,0 +1,20 @@
+package com.example.contractor_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Итог массового сохранения контрагентов: количество созданных, обновлённых
+ * и не сохранённых записей (например, без ID или со ссылкой на несуществующий справочник).
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSaveResult {
+
+    private long inserted;
+    private long updated;
+    private long failed;
+
+}
@@ -0,0 +1,18 @@
+package com.example.contractor_service.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Результат сохранения контрагента.
+ * Содержит сохранённую запись со связанными наименованиями справочников
+ * и признак того, была ли запись создана ({@code true}) или обновлена ({@code false}).
+ */
+@Getter
+@AllArgsConstructor
+public class ContractorSaveResult {
+
+    private final Contractor contractor;
+    private final boolean created;
+
+}
@@ -0,0 +1,50 @@
+package com.example.contractor_service.model;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Формат выгрузки контрагентов через {@code COPY ... TO STDOUT}.
+ */
+public enum ExportFormat {
+
+    /**
+     * CSV с разделителем {@code ;} и строкой заголовка.
+     */
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+
+    /**
+     * Один JSON-объект контрагента на строку в том же виде, что и в REST API.
+     */
+    NDJSON(MediaType.APPLICATION_NDJSON, "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Определяет формат по значению параметра запроса без учёта регистра.
+     *
+     * @param value Значение параметра, например {@code csv} или {@code ndjson}.
+     * @return Формат выгрузки.
+     * @throws IllegalArgumentException Если формат не поддерживается.
+     */
+    public static ExportFormat fromValue(String value) {
+        return valueOf(value.trim().toUpperCase(Locale.ROOT));
+    }
+
+}
@@ -10,6 +10,15 @@ import java.util.Map;
 /**
  * Модель запроса для поиска подрядчиков с применением фильтров и пагинации.
  * Используется в POST /contractor/search.
+ * <p>
+ * Если задано поле {@code after}, поиск выполняется в режиме keyset-пагинации:
+ * поле {@code page} игнорируется, а выборка продолжается после курсора,
+ * полученного в {@code nextCursor} предыдущего ответа.
+ * </p>
+ * <p>
+ * Поле {@code totalMode} управляет вычислением общего количества записей
+ * (см. {@link TotalMode}); по умолчанию используется {@link TotalMode#EXACT}.
+ * </p>
  */
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,5 +29,7 @@ public class SearchRequest {
     private Map<String, String> filters;
     private int page;
     private int size;
+    private String after;
+    private TotalMode totalMode;
 
 }
@@ -9,6 +9,10 @@ import java.util.List;
 /**
  * Модель ответа для результатов поиска подрядчиков.
  * Содержит список найденных подрядчиков и информацию о пагинации.
+ * Поле {@code nextCursor} заполняется, если после текущей страницы могут быть ещё записи,
+ * и передаётся клиентом в {@code after} для получения следующей страницы.
+ * Если общее количество не вычислялось ({@link TotalMode#NONE}),
+ * {@code totalElements} и {@code totalPages} равны -1.
  */
 @Getter
 @Setter
@@ -20,6 +24,8 @@ public class SearchResponse {
     private int size;
     private long totalElements;
     private int totalPages;
+    private String nextCursor;
+    private TotalMode totalMode;
 
     public SearchResponse(List<Contractor> contractors, int page, int size, long totalElements) {
         this.contractors = contractors;
@@ -27,6 +33,16 @@ public class SearchResponse {
         this.size = size;
         this.totalElements = totalElements;
         this.totalPages = (int) Math.ceil((double) totalElements / size);
+        this.totalMode = TotalMode.EXACT;
+    }
+
+    public SearchResponse(List<Contractor> contractors, int page, int size, long totalElements, TotalMode totalMode) {
+        this(contractors, page, size, totalElements);
+        this.totalMode = totalMode;
+        if (totalMode == TotalMode.NONE) {
+            this.totalElements = -1;
+            this.totalPages = -1;
+        }
     }
 
 }
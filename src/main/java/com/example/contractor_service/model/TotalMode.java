@@ -0,0 +1,29 @@
+package com.example.contractor_service.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Режим вычисления общего количества найденных записей при поиске контрагентов.
+ * Передаётся в поле {@code totalMode} запроса {@link SearchRequest}.
+ */
+public enum TotalMode {
+
+    /**
+     * Общее количество не вычисляется, {@code totalElements} и {@code totalPages} равны -1.
+     */
+    @JsonProperty("none")
+    NONE,
+
+    /**
+     * Точное количество, вычисляемое в том же запросе, что и страница (режим по умолчанию).
+     */
+    @JsonProperty("exact")
+    EXACT,
+
+    /**
+     * Приблизительное количество по оценке планировщика PostgreSQL, без выполнения запроса.
+     */
+    @JsonProperty("estimate")
+    ESTIMATE
+
+}
@@ -4,6 +4,7 @@ public enum MessageStatus {
 
     SENT,
     PENDING,
-    FAILED
+    DEAD_LETTER,
+    SUPERSEDED
 
 }
@@ -29,6 +29,9 @@ public class OutboxMessage {
     @Column(name = "message_id", nullable = false, updatable = false)
     private UUID messageId;
 
+    @Column(name = "contractor_id")
+    private String contractorId;
+
     @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
     private String payload;
 
@@ -36,6 +39,15 @@ public class OutboxMessage {
     @Column(name = "status", nullable = false)
     private MessageStatus status;
 
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
     @CreationTimestamp
     @Column(name = "sent_at", nullable = false, updatable = false)
     private LocalDateTime sentAt;
@@ -1,16 +1,44 @@
 package com.example.contractor_service.repository;
 
+import com.example.contractor_service.model.BulkSaveResult;
 import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.ContractorSaveResult;
+import com.example.contractor_service.model.ExportFormat;
+import com.example.contractor_service.model.SearchResponse;
+import com.example.contractor_service.model.TotalMode;
 import com.example.contractor_service.util.RowMappers;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Репозиторий для взаимодействия с таблицей "contractor" в базе данных
@@ -23,10 +51,146 @@ public class ContractorRepository {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ContractorRepository.class);
 
+    private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
+    /**
+     * Чтения затрагивают только таблицу {@code contractor}: наименования справочников
+     * подставляются из {@link DictionarySnapshot}, а фильтры по наименованиям заранее
+     * переводятся в наборы ID.
+     */
+    private static final String SEARCH_FROM = "FROM contractor c WHERE c.is_active = TRUE";
+
+    private static final String CONTRACTOR_COLUMNS = "c.id, c.parent_id, c.name, c.name_full, c.inn, c.ogrn, " +
+            "c.country, c.industry, c.org_form, " +
+            "c.create_date, c.modify_date, c.create_user_id, c.modify_user_id, c.is_active ";
+
+    private static final String SEARCH_SELECT = "SELECT " + CONTRACTOR_COLUMNS + SEARCH_FROM;
+
+    /**
+     * Выгрузка через COPY формирует строки целиком на стороне PostgreSQL, поэтому наименования
+     * справочников по-прежнему берутся соединением.
+     */
+    private static final String EXPORT_FROM = "FROM contractor c " +
+            "LEFT JOIN country co ON c.country = co.id " +
+            "LEFT JOIN industry i ON c.industry = i.id " +
+            "LEFT JOIN org_form o ON c.org_form = o.id " +
+            "WHERE c.is_active = TRUE";
+
+    private static final String SEARCH_COLUMNS = CONTRACTOR_COLUMNS +
+            ", co.name AS country_name, i.name AS industry_name, o.name AS org_form_name ";
+
+    private static final String UPSERT_INSERT = "INSERT INTO contractor (" +
+            "id, parent_id, name, name_full, inn, ogrn, " +
+            "country, industry, org_form, " +
+            "create_date, modify_date, create_user_id, modify_user_id, is_active) ";
+
+    /**
+     * При обновлении {@code is_active} и поля создания не изменяются.
+     * Признак вставки вычисляется по {@code xmax = 0}.
+     */
+    private static final String UPSERT_ON_CONFLICT = "ON CONFLICT (id) DO UPDATE SET " +
+            "parent_id = EXCLUDED.parent_id, name = EXCLUDED.name, name_full = EXCLUDED.name_full, " +
+            "inn = EXCLUDED.inn, ogrn = EXCLUDED.ogrn, " +
+            "country = EXCLUDED.country, industry = EXCLUDED.industry, org_form = EXCLUDED.org_form, " +
+            "modify_date = NOW(), modify_user_id = EXCLUDED.modify_user_id " +
+            "RETURNING *, (xmax = 0) AS inserted) ";
+
+    private static final String UPSERT_RESULT_JOINS = "FROM c " +
+            "LEFT JOIN country co ON c.country = co.id " +
+            "LEFT JOIN industry i ON c.industry = i.id " +
+            "LEFT JOIN org_form o ON c.org_form = o.id";
+
+    /**
+     * Сохранённая строка возвращается вместе с наименованиями справочников и признаком вставки.
+     */
+    private static final String UPSERT_CONFLICT_AND_RESULT = UPSERT_ON_CONFLICT +
+            "SELECT " + SEARCH_COLUMNS + ", c.inserted " + UPSERT_RESULT_JOINS;
+
+    private static final String UPSERT_SQL = "WITH c AS (" + UPSERT_INSERT +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW(), ?, ?, TRUE) " +
+            UPSERT_CONFLICT_AND_RESULT;
+
+    /**
+     * Многострочная вариация {@link #UPSERT_SQL}: значения порции передаются массивами по колонкам
+     * и разворачиваются через {@code unnest}, поэтому вся порция сохраняется одним запросом.
+     */
+    private static final String BATCH_UPSERT_SQL = "WITH c AS (" + UPSERT_INSERT +
+            "SELECT t.*, NOW(), NOW(), ?, ?, TRUE " +
+            "FROM unnest(?::varchar[], ?::varchar[], ?::text[], ?::text[], ?::text[], ?::text[], ?::text[], ?::int[], ?::int[]) " +
+            "AS t(id, parent_id, name, name_full, inn, ogrn, country, industry, org_form) " +
+            UPSERT_CONFLICT_AND_RESULT;
+
+    private static final String CREATE_IMPORT_STAGING_SQL = "CREATE TEMP TABLE IF NOT EXISTS contractor_import (" +
+            "line_no BIGINT, id VARCHAR(12), parent_id VARCHAR(12), name TEXT, name_full TEXT, " +
+            "inn TEXT, ogrn TEXT, country TEXT, industry INT, org_form INT) ON COMMIT DROP";
+
+    private static final String COPY_IMPORT_STAGING_SQL = "COPY contractor_import " +
+            "(line_no, id, parent_id, name, name_full, inn, ogrn, country, industry, org_form) FROM STDIN";
+
+    /**
+     * JSON контрагента в том же формате, в каком {@code ObjectMapper} REST API сериализует {@link Contractor}:
+     * даты пишутся ISO-строками. Используется для выгрузки в NDJSON; ожидает псевдонимы c, co, i, o.
+     */
+    private static final String CONTRACTOR_JSON = contractorJson("c.create_date", "c.modify_date");
+
+    /**
+     * JSON контрагента для тела сообщений outbox в формате конвертера RabbitMQ: даты пишутся массивами
+     * {@code [год, месяц, день, час, минута, секунда, наносекунды]}, секунды и наносекунды опускаются,
+     * если равны нулю, как это делает Jackson при {@code WRITE_DATES_AS_TIMESTAMPS}.
+     */
+    private static final String OUTBOX_CONTRACTOR_JSON = contractorJson(
+            timestampArray("c.create_date"), timestampArray("c.modify_date"));
+
+    /**
+     * Переносит строки из промежуточной таблицы в {@code contractor} и добавляет сообщения в outbox
+     * одним запросом. Повторы ID схлопываются до последней строки файла; строки без наименования
+     * или со ссылками на несуществующие справочники и родителей отбрасываются. Родитель из того же
+     * файла подходит, только если его строка сама прошла проверку: {@code valid} рекурсивно
+     * добавляет потомков принятых строк, начиная со строк без родителя или с родителем в базе.
+     */
+    private static final String MERGE_IMPORT_SQL = "WITH RECURSIVE src AS (" +
+            "SELECT DISTINCT ON (s.id) s.* FROM contractor_import s ORDER BY s.id, s.line_no DESC" +
+            "), checked AS (" +
+            "SELECT src.* FROM src WHERE src.name IS NOT NULL " +
+            "AND (src.country IS NULL OR EXISTS (SELECT 1 FROM country WHERE id = src.country)) " +
+            "AND (src.industry IS NULL OR EXISTS (SELECT 1 FROM industry WHERE id = src.industry)) " +
+            "AND (src.org_form IS NULL OR EXISTS (SELECT 1 FROM org_form WHERE id = src.org_form))" +
+            "), valid AS (" +
+            "SELECT checked.* FROM checked WHERE checked.parent_id IS NULL " +
+            "OR EXISTS (SELECT 1 FROM contractor WHERE id = checked.parent_id) " +
+            "UNION SELECT ch.* FROM checked ch JOIN valid v ON ch.parent_id = v.id" +
+            "), c AS (" + UPSERT_INSERT +
+            "SELECT id, parent_id, name, name_full, inn, ogrn, country, industry, org_form, NOW(), NOW(), ?, ?, TRUE " +
+            "FROM valid " +
+            UPSERT_ON_CONFLICT +
+            ", outbox AS (" +
+            "INSERT INTO outbox_messages (message_id, contractor_id, payload, status, sent_at) " +
+            "SELECT gen_random_uuid(), c.id, " + OUTBOX_CONTRACTOR_JSON + ", 'PENDING', NOW() " + UPSERT_RESULT_JOINS +
+            ") " +
+            "SELECT (SELECT COUNT(*) FROM src) AS total, " +
+            "COUNT(*) FILTER (WHERE c.inserted) AS inserted, " +
+            "COUNT(*) FILTER (WHERE NOT c.inserted) AS updated " +
+            "FROM c";
+
+    /**
+     * Условие частичного поиска по наименованию, полному наименованию, ИНН и ОГРН.
+     * Используется ILIKE по исходным колонкам, чтобы планировщик мог применить
+     * GIN-индексы {@code gin_trgm_ops} (changeset 006) вместо последовательного сканирования.
+     */
+    static final String CONTRACTOR_SEARCH_PREDICATE = "(c.name ILIKE ?" +
+            " OR c.name_full ILIKE ?" +
+            " OR c.inn ILIKE ?" +
+            " OR c.ogrn ILIKE ?)";
+
     private final JdbcTemplate jdbcTemplate;
+    private final DictionarySnapshotRepository dictionarySnapshotRepository;
+    private final int streamFetchSize;
 
-    public ContractorRepository(JdbcTemplate jdbcTemplate) {
+    public ContractorRepository(JdbcTemplate jdbcTemplate, DictionarySnapshotRepository dictionarySnapshotRepository,
+                                @Value("${contractor.stream.fetch-size:500}") int streamFetchSize) {
         this.jdbcTemplate = jdbcTemplate;
+        this.dictionarySnapshotRepository = dictionarySnapshotRepository;
+        this.streamFetchSize = streamFetchSize;
     }
 
     /**
@@ -34,125 +198,70 @@ public class ContractorRepository {
      * @return список объектов {@link Contractor}.
      */
     public List<Contractor> findAll() {
-        String sql = "SELECT c.id, c.parent_id, c.name, c.name_full, c.inn, c.ogrn, " +
-                "c.country, c.industry, c.org_form, " +
-                "c.create_date, c.modify_date, c.create_user_id, c.modify_user_id, c.is_active, " +
-                "co.name AS country_name, i.name AS industry_name, o.name AS org_form_name " +
-                "FROM contractor c " +
-                "LEFT JOIN country co ON c.country = co.id " +
-                "LEFT JOIN industry i ON c.industry = i.id " +
-                "LEFT JOIN org_form o ON c.org_form = o.id " +
-                "WHERE c.is_active = TRUE";
-
-        return jdbcTemplate.query(sql, RowMappers.CONTRACTOR_ROW_MAPPER);
+        return jdbcTemplate.query(SEARCH_SELECT, contractorRowMapper(dictionarySnapshotRepository.current()));
+    }
+
+    /**
+     * Последовательно передаёт всех активных контрагентов в обработчик, не накапливая их в памяти.
+     * Читает строки однонаправленным курсором порциями по {@code contractor.stream.fetch-size};
+     * драйвер PostgreSQL использует курсор только при выключенном autocommit, поэтому метод
+     * должен вызываться внутри транзакции.
+     *
+     * @param consumer Обработчик, получающий каждого контрагента сразу после чтения строки.
+     * @return Количество переданных контрагентов.
+     */
+    public int streamAll(Consumer<Contractor> consumer) {
+        String sql = SEARCH_SELECT + " ORDER BY c.id";
+        RowMapper<Contractor> rowMapper = contractorRowMapper(dictionarySnapshotRepository.current());
+        Integer count = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamFetchSize);
+            return statement;
+        }, resultSet -> {
+            int rowNum = 0;
+            while (resultSet.next()) {
+                consumer.accept(rowMapper.mapRow(resultSet, rowNum++));
+            }
+            return rowNum;
+        });
+        return count != null ? count : 0;
     }
 
     /**
      * Получает контрагента по его уникальному идентификатору (ID) со всей связанной информацией.
-     * Использует JOIN для получения названий страны, индустрии и организационной формы.
+     * Названия страны, индустрии и организационной формы берутся из снимка справочников.
      *
      * @param id ID контрагента.
      * @return {@link Optional} содержащий объект {@link Contractor}, если найден, иначе пустой {@link Optional}.
      */
     public Optional<Contractor> findById(String id) {
-        String sql = "SELECT c.id, c.parent_id, c.name, c.name_full, c.inn, c.ogrn, " +
-                "c.country, c.industry, c.org_form, " +
-                "c.create_date, c.modify_date, c.create_user_id, c.modify_user_id, c.is_active, " +
-                "co.name AS country_name, i.name AS industry_name, o.name AS org_form_name " +
-                "FROM contractor c " +
-                "LEFT JOIN country co ON c.country = co.id " +
-                "LEFT JOIN industry i ON c.industry = i.id " +
-                "LEFT JOIN org_form o ON c.org_form = o.id " +
-                "WHERE c.id = ?";
-        List<Contractor> contractors = jdbcTemplate.query(sql, RowMappers.CONTRACTOR_ROW_MAPPER, id);
+        String sql = "SELECT " + CONTRACTOR_COLUMNS + "FROM contractor c WHERE c.id = ?";
+        List<Contractor> contractors = jdbcTemplate.query(sql, contractorRowMapper(dictionarySnapshotRepository.current()), id);
         return contractors.stream().findFirst();
     }
 
     /**
-     * Сохраняет нового контрагента или обновляет существующего.
-     * Служебные поля (create_date, modify_date, create_user_id, modify_user_id, is_active)
-     * управляются базой данных или не изменяются.
+     * Сохраняет нового контрагента или обновляет существующего одним запросом
+     * {@code INSERT ... ON CONFLICT (id) DO UPDATE}. Служебные поля (create_date, modify_date,
+     * create_user_id, modify_user_id, is_active) управляются базой данных или не изменяются.
      *
      * @param contractor Объект {@link Contractor} для сохранения или обновления.
-     * @return Сохраненный или обновленный объект {@link Contractor}.
-     */
-    public Contractor save(Contractor contractor) {
-        // Проверяем, существует ли контрагент с таким ID
-        String checkSql = "SELECT COUNT(*) FROM contractor WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, contractor.getId());
-
-        if (count != null && count > 0) {
-            // Обновление существующего контрагента
-            String sql = "UPDATE contractor SET " +
-                    "parent_id = ?, name = ?, name_full = ?, inn = ?, ogrn = ?, " +
-                    "country = ?, industry = ?, org_form = ?, " +
-                    "modify_date = NOW(), modify_user_id = ? " + // Обновляем служебные поля
-                    "WHERE id = ?";
-
-            jdbcTemplate.update(sql,
-                    contractor.getParentId(), contractor.getName(), contractor.getNameFull(),
-                    contractor.getInn(), contractor.getOgrn(),
-                    contractor.getCountryId(), contractor.getIndustryId(), contractor.getOrgFormId(),
-                    "sergej",
-                    contractor.getId());
-        } else {
-            // Вставка нового контрагента
-            String sql = "INSERT INTO contractor (" +
-                    "id, parent_id, name, name_full, inn, ogrn, " +
-                    "country, industry, org_form, " +
-                    "create_date, modify_date, create_user_id, modify_user_id, is_active" +
-                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW(), ?, ?, TRUE)"; // DEFAULT TRUE для is_active
-
-            // ставим заглушку 'sergej'
-            jdbcTemplate.update(sql,
-                    contractor.getId(), contractor.getParentId(), contractor.getName(),
-                    contractor.getNameFull(), contractor.getInn(), contractor.getOgrn(),
-                    contractor.getCountryId(), contractor.getIndustryId(), contractor.getOrgFormId(),
-                    "sergej", "sergej"
-            );
-        }
-        // Возвращаем контрагента, возможно, с обновленными служебными полями, если они были считаны
-        // Для этого можно было бы сделать findById после save/update, но это добавляет еще один запрос.
-        // Для простоты, возвращаем исходный объект.
-        return contractor;
+     * @return {@link ContractorSaveResult} с сохранённой записью и признаком создания.
+     */
+    public ContractorSaveResult save(Contractor contractor) {
+        // ставим заглушку 'sergej'
+        return upsert(contractor, "sergej");
     }
 
-    public Contractor save(Contractor contractor, Long userId) {
-        // Проверяем, существует ли контрагент с таким ID
-        String checkSql = "SELECT COUNT(*) FROM contractor WHERE id = ?";
-        Integer count = jdbcTemplate.queryForObject(checkSql, Integer.class, contractor.getId());
-
-        if (count != null && count > 0) {
-            // Обновление существующего контрагента
-            String sql = "UPDATE contractor SET " +
-                    "parent_id = ?, name = ?, name_full = ?, inn = ?, ogrn = ?, " +
-                    "country = ?, industry = ?, org_form = ?, " +
-                    "modify_date = NOW(), modify_user_id = ? " + // Обновляем служебные поля
-                    "WHERE id = ?";
-
-            jdbcTemplate.update(sql,
-                    contractor.getParentId(), contractor.getName(), contractor.getNameFull(),
-                    contractor.getInn(), contractor.getOgrn(),
-                    contractor.getCountryId(), contractor.getIndustryId(), contractor.getOrgFormId(),
-                    userId,
-                    contractor.getId());
-        } else {
-            // Вставка нового контрагента
-            String sql = "INSERT INTO contractor (" +
-                    "id, parent_id, name, name_full, inn, ogrn, " +
-                    "country, industry, org_form, " +
-                    "create_date, modify_date, create_user_id, modify_user_id, is_active" +
-                    ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW(), ?, ?, TRUE)"; // DEFAULT TRUE для is_active
-
-            jdbcTemplate.update(sql,
-                    contractor.getId(), contractor.getParentId(), contractor.getName(),
-                    contractor.getNameFull(), contractor.getInn(), contractor.getOgrn(),
-                    contractor.getCountryId(), contractor.getIndustryId(), contractor.getOrgFormId(),
-                    userId, userId
-            );
-        }
-
-        return contractor;
+    /**
+     * Сохраняет нового контрагента или обновляет существующего от имени пользователя.
+     *
+     * @param contractor Объект {@link Contractor} для сохранения или обновления.
+     * @param userId     ID пользователя, выполняющего изменение.
+     * @return {@link ContractorSaveResult} с сохранённой записью и признаком создания.
+     */
+    public ContractorSaveResult save(Contractor contractor, Long userId) {
+        return upsert(contractor, userId != null ? String.valueOf(userId) : null);
     }
 
     /**
@@ -176,156 +285,513 @@ public class ContractorRepository {
      * @return Список объектов {@link Contractor}, соответствующих критериям.
      */
     public List<Contractor> search(Map<String, String> filters, int page, int size) {
+        DictionarySnapshot snapshot = dictionarySnapshotRepository.current();
+        StringBuilder sqlBuilder = new StringBuilder(SEARCH_SELECT);
+        List<Object> params = new ArrayList<>();
+        appendFilters(sqlBuilder, params, filters, snapshot);
+
+        // Добавляем пагинацию
+        sqlBuilder.append(" ORDER BY c.id"); // Важно для консистентной пагинации
+        sqlBuilder.append(" LIMIT ? OFFSET ?");
+        params.add(size);
+        params.add(page * size); // Вычисляем OFFSET
+
+        return jdbcTemplate.query(sqlBuilder.toString(), contractorRowMapper(snapshot), params.toArray());
+    }
+
+    /**
+     * Выполняет поиск контрагентов в режиме keyset-пагинации: вместо OFFSET возвращаются
+     * записи, идентификатор которых строго больше последнего увиденного клиентом.
+     * Поиск по первичному ключу позволяет не сканировать пропущенные строки,
+     * поэтому стоимость запроса не зависит от глубины страницы.
+     * <p>
+     * Для курсора, выданного встроенным поиском, ID сравниваются с {@code COLLATE "C"}: этот порядок
+     * совпадает с {@link String#compareTo} для ID из символов BMP. Индекс первичного ключа построен
+     * в порядке сравнения базы, поэтому такой запрос сортирует подходящие строки.
+     * </p>
+     *
+     * @param filters     Карта (Map) фильтров, где ключ - имя поля, значение - критерий поиска.
+     * @param afterId     ID последнего контрагента предыдущей страницы.
+     * @param binaryOrder Продолжать выборку в побайтовом порядке ID, а не в порядке сравнения базы.
+     * @param size        Количество элементов на странице.
+     * @return Список объектов {@link Contractor}, соответствующих критериям.
+     */
+    public List<Contractor> searchAfter(Map<String, String> filters, String afterId, boolean binaryOrder, int size) {
+        DictionarySnapshot snapshot = dictionarySnapshotRepository.current();
+        StringBuilder sqlBuilder = new StringBuilder(SEARCH_SELECT);
+        List<Object> params = new ArrayList<>();
+        appendFilters(sqlBuilder, params, filters, snapshot);
+
+        String idOrder = binaryOrder ? "c.id COLLATE \"C\"" : "c.id";
+        sqlBuilder.append(" AND ").append(idOrder).append(" > ?");
+        params.add(afterId);
+        sqlBuilder.append(" ORDER BY ").append(idOrder).append(" LIMIT ?");
+        params.add(size);
+
+        return jdbcTemplate.query(sqlBuilder.toString(), contractorRowMapper(snapshot), params.toArray());
+    }
+
+    /**
+     * Получает общее количество активных контрагенты, соответствующих заданным фильтрам.
+     * Используется для расчета общего количества страниц в пагинации.
+     *
+     * @param filters Карта (Map) фильтров, где ключ - имя поля, значение - критерий поиска.
+     * @return Общее количество активных контрагентов, соответствующих фильтрам.
+     */
+    public int countSearch(Map<String, String> filters) {
         StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT c.id, c.parent_id, c.name, c.name_full, c.inn, c.ogrn, ")
-                .append("c.country, c.industry, c.org_form, ")
-                .append("c.create_date, c.modify_date, c.create_user_id, c.modify_user_id, c.is_active, ")
-                .append("co.name AS country_name, i.name AS industry_name, o.name AS org_form_name ")
-                .append("FROM contractor c ")
-                .append("LEFT JOIN country co ON c.country = co.id ")
-                .append("LEFT JOIN industry i ON c.industry = i.id ")
-                .append("LEFT JOIN org_form o ON c.org_form = o.id ")
-                .append("WHERE c.is_active = TRUE");
+        sqlBuilder.append("SELECT COUNT(*) ")
+                .append(SEARCH_FROM); // Только активные контрагенты
 
         List<Object> params = new ArrayList<>();
+        appendFilters(sqlBuilder, params, filters, dictionarySnapshotRepository.current());
 
-        filters.forEach((key, value) -> {
-            switch (key) {
+        Integer count = jdbcTemplate.queryForObject(sqlBuilder.toString(), Integer.class, params.toArray());
+        return count != null ? count : 0;
+    }
 
-                case "contractor_id" -> {
-                    // Точное совпадение
-                    sqlBuilder.append(" AND c.id = ?");
-                    params.add(value);
-                }
+    /**
+     * Получает активных контрагентов по набору идентификаторов со всей связанной информацией.
+     * Используется для загрузки страницы, состав которой уже определён вне базы данных.
+     *
+     * @param ids ID контрагентов.
+     * @return Список найденных активных контрагентов, упорядоченный по ID.
+     */
+    public List<Contractor> findAllByIds(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String sql = SEARCH_SELECT + " AND c.id = ANY(?) ORDER BY c.id";
+        return jdbcTemplate.query(sql, contractorRowMapper(dictionarySnapshotRepository.current()),
+                (Object) ids.toArray(new String[0]));
+    }
 
-                case "parent_id" -> {
-                    // Точное совпадение
-                    sqlBuilder.append(" AND c.parent_id = ?");
-                    params.add(value);
-                }
+    /**
+     * Сохраняет порцию контрагентов одним многострочным запросом {@code INSERT ... ON CONFLICT}.
+     * ID в порции должны быть уникальны: одна команда не может изменить строку дважды.
+     *
+     * @param contractors Контрагенты с уникальными ID.
+     * @param userId      ID пользователя, выполняющего изменение; для {@code null} ставится та же заглушка,
+     *                    что и в {@link #save(Contractor)}.
+     * @return Результаты сохранения (порядок не гарантируется).
+     */
+    public List<ContractorSaveResult> saveBatch(List<Contractor> contractors, Long userId) {
+        String user = userId != null ? String.valueOf(userId) : "sergej";
+        int size = contractors.size();
+        String[] ids = new String[size];
+        String[] parentIds = new String[size];
+        String[] names = new String[size];
+        String[] fullNames = new String[size];
+        String[] inns = new String[size];
+        String[] ogrns = new String[size];
+        String[] countries = new String[size];
+        Integer[] industries = new Integer[size];
+        Integer[] orgForms = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            Contractor contractor = contractors.get(i);
+            ids[i] = contractor.getId();
+            parentIds[i] = contractor.getParentId();
+            names[i] = contractor.getName();
+            fullNames[i] = contractor.getNameFull();
+            inns[i] = contractor.getInn();
+            ogrns[i] = contractor.getOgrn();
+            countries[i] = contractor.getCountryId();
+            industries[i] = contractor.getIndustryId();
+            orgForms[i] = contractor.getOrgFormId();
+        }
+        return jdbcTemplate.query(BATCH_UPSERT_SQL,
+                (rs, rowNum) -> new ContractorSaveResult(RowMappers.CONTRACTOR_ROW_MAPPER.mapRow(rs, rowNum), rs.getBoolean("inserted")),
+                user, user, ids, parentIds, names, fullNames, inns, ogrns, countries, industries, orgForms);
+    }
 
-                case "contractor_search" -> {
-                    // Частичное совпадение по нескольким полям
-                    sqlBuilder.append(" AND (LOWER(c.name) LIKE LOWER(?)" +
-                            " OR LOWER(c.name_full) LIKE LOWER(?)" +
-                            " OR LOWER(c.inn) LIKE LOWER(?)" +
-                            " OR LOWER(c.ogrn) LIKE LOWER(?))");
-                    String likeValue = "%" + value + "%";
-                    params.add(likeValue);
-                    params.add(likeValue);
-                    params.add(likeValue);
-                    params.add(likeValue);
-                }
+    /**
+     * Импортирует контрагентов через {@code COPY ... FROM STDIN} во временную таблицу с последующим
+     * переносом в {@code contractor} и outbox одним запросом, без обращений к базе на каждую строку.
+     * Строки передаются в COPY по мере чтения из итератора. Должен вызываться в транзакции:
+     * временная таблица удаляется при её завершении.
+     *
+     * @param contractors Поток контрагентов.
+     * @param userId      ID пользователя, выполняющего импорт; для {@code null} ставится заглушка,
+     *                    как в {@link #save(Contractor)}.
+     * @return {@link BulkSaveResult}; в {@code failed} учитываются строки, не прошедшие проверку ссылок.
+     */
+    public BulkSaveResult importContractors(Iterator<Contractor> contractors, Long userId) {
+        String user = userId != null ? String.valueOf(userId) : "sergej";
+        return jdbcTemplate.execute((ConnectionCallback<BulkSaveResult>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_IMPORT_STAGING_SQL);
+            }
 
-                case "country" -> {
-                    // Частичное совпадение по country.name
-                    sqlBuilder.append(" AND LOWER(co.name) LIKE LOWER(?)");
-                    params.add("%" + value + "%");
+            long lineNo = 0;
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                    new PGCopyOutputStream(pgConnection, COPY_IMPORT_STAGING_SQL), StandardCharsets.UTF_8))) {
+                while (contractors.hasNext()) {
+                    Contractor contractor = contractors.next();
+                    writeCopyRow(writer, ++lineNo, contractor.getId(), contractor.getParentId(), contractor.getName(),
+                            contractor.getNameFull(), contractor.getInn(), contractor.getOgrn(), contractor.getCountryId(),
+                            contractor.getIndustryId(), contractor.getOrgFormId());
                 }
-
-                case "countryId" -> {
-                    sqlBuilder.append(" AND co.id = ?");
-                    params.add(value);
+            } catch (IOException e) {
+                throw new SQLException("Ошибка передачи данных импорта в COPY", e);
+            }
+            LOGGER.info("В промежуточную таблицу импорта загружено {} строк", lineNo);
+
+            try (PreparedStatement merge = connection.prepareStatement(MERGE_IMPORT_SQL)) {
+                merge.setString(1, user);
+                merge.setString(2, user);
+                try (ResultSet rs = merge.executeQuery()) {
+                    rs.next();
+                    long total = rs.getLong("total");
+                    long inserted = rs.getLong("inserted");
+                    long updated = rs.getLong("updated");
+                    return new BulkSaveResult(inserted, updated, Math.max(total - inserted - updated, 0));
                 }
+            }
+        });
+    }
 
-                case "industry" -> {
-                    // Точное совпадение
-                    sqlBuilder.append(" AND c.industry = ?");
-                    try {
-                        params.add(Integer.parseInt(value));
-                    } catch (NumberFormatException e) {
+    /**
+     * Возвращает время начала текущей транзакции в том виде, в каком {@code NOW()} записывается
+     * в {@code modify_date}. Вместе с {@link #forEachModified} позволяет после фиксации массового
+     * изменения найти затронутые им строки, не накапливая их ID в памяти.
+     *
+     * @return Время начала транзакции.
+     */
+    public LocalDateTime currentTimestamp() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", LocalDateTime.class);
+    }
 
-                        LOGGER.warn("Неверный формат industry ID: " + value);
+    /**
+     * Передаёт порциями контрагентов, изменённых пользователем в заданный момент, включая неактивных.
+     * Порции читаются keyset-пагинацией по первичному ключу, поэтому метод не требует транзакции
+     * и держит в памяти не больше одной порции. Строки, изменённые позже другой операцией,
+     * не попадают в выборку: их актуальность обеспечивает сама эта операция.
+     *
+     * @param modifyDate Значение {@code modify_date}, полученное через {@link #currentTimestamp()}
+     *                   в транзакции изменения.
+     * @param userId     ID пользователя, выполнившего изменение; для {@code null} используется та же
+     *                   заглушка, что и при импорте.
+     * @param chunkSize  Размер порции.
+     * @param consumer   Обработчик порции.
+     * @return Количество переданных контрагентов.
+     */
+    public long forEachModified(LocalDateTime modifyDate, Long userId, int chunkSize, Consumer<List<Contractor>> consumer) {
+        String sql = "SELECT " + CONTRACTOR_COLUMNS + "FROM contractor c " +
+                "WHERE c.modify_date = ? AND c.modify_user_id = ? AND c.id > ? ORDER BY c.id LIMIT ?";
+        String user = userId != null ? String.valueOf(userId) : "sergej";
+        RowMapper<Contractor> rowMapper = contractorRowMapper(dictionarySnapshotRepository.current());
+        long total = 0;
+        String afterId = "";
+        while (true) {
+            List<Contractor> chunk = jdbcTemplate.query(sql, rowMapper, modifyDate, user, afterId, chunkSize);
+            if (chunk.isEmpty()) {
+                return total;
+            }
+            consumer.accept(chunk);
+            total += chunk.size();
+            if (chunk.size() < chunkSize) {
+                return total;
+            }
+            afterId = chunk.get(chunk.size() - 1).getId();
+        }
+    }
 
+    /**
+     * Выгружает всех активных контрагентов, подходящих под фильтры, через {@code COPY (SELECT ...) TO STDOUT},
+     * передавая байты от PostgreSQL в {@code out} без разбора. Фильтры имеют ту же семантику, что и в
+     * {@link #search(Map, int, int)}; так как COPY не поддерживает параметры, их значения
+     * подставляются в запрос экранированными литералами.
+     * <p>
+     * Для NDJSON используется формат CSV с управляющими символами в роли кавычки и разделителя:
+     * такие символы в JSON всегда экранированы, поэтому строки выводятся без изменений.
+     * </p>
+     *
+     * @param filters Фильтры поиска.
+     * @param format  Формат выгрузки.
+     * @param out     Поток, в который записываются данные.
+     * @return Количество выгруженных строк.
+     */
+    public long export(Map<String, String> filters, ExportFormat format, OutputStream out) {
+        StringBuilder sqlBuilder = new StringBuilder("SELECT ")
+                .append(format == ExportFormat.NDJSON ? CONTRACTOR_JSON + " " : SEARCH_COLUMNS)
+                .append(EXPORT_FROM);
+        List<Object> params = new ArrayList<>();
+        appendFilters(sqlBuilder, params, filters, dictionarySnapshotRepository.current());
+        sqlBuilder.append(" ORDER BY c.id");
+
+        String options = switch (format) {
+            case NDJSON -> "(FORMAT csv, DELIMITER E'\\x02', QUOTE E'\\x01')";
+            default -> "(FORMAT csv, HEADER true, DELIMITER ';')";
+        };
+
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            String sql = "COPY (" + inlineParameters(sqlBuilder.toString(), params, pgConnection) + ") TO STDOUT WITH " + options;
+            try {
+                return pgConnection.getCopyAPI().copyOut(sql, out);
+            } catch (IOException e) {
+                throw new SQLException("Ошибка передачи данных выгрузки клиенту", e);
+            }
+        });
+        LOGGER.info("Выгружено {} контрагентов в формате {}", rows, format);
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * Подставляет значения параметров вместо {@code ?}: строки — как экранированные литералы,
+     * числа — как есть, массивы — как {@code ARRAY[...]} из таких же элементов.
+     */
+    private static String inlineParameters(String sql, List<Object> params, PGConnection connection) throws SQLException {
+        StringBuilder result = new StringBuilder(sql.length() + params.size() * 16);
+        int param = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char ch = sql.charAt(i);
+            if (ch != '?') {
+                result.append(ch);
+                continue;
+            }
+            Object value = params.get(param++);
+            if (value instanceof Object[] array) {
+                result.append("ARRAY[");
+                for (int j = 0; j < array.length; j++) {
+                    if (j > 0) {
+                        result.append(", ");
                     }
+                    appendLiteral(result, array[j], connection);
                 }
+                result.append(']');
+            } else {
+                appendLiteral(result, value, connection);
+            }
+        }
+        return result.toString();
+    }
 
-                case "org_form" -> {
-                    // Частичное совпадение по org_form.name
-                    sqlBuilder.append(" AND LOWER(o.name) LIKE LOWER(?)");
-                    params.add("%" + value + "%");
-                }
-                default -> {
-                    LOGGER.warn("Необрабатываемый фильтр: {}", key);
+    private static void appendLiteral(StringBuilder result, Object value, PGConnection connection) throws SQLException {
+        if (value instanceof Number) {
+            result.append(value);
+        } else {
+            result.append('\'').append(connection.escapeLiteral(String.valueOf(value))).append('\'');
+        }
+    }
+
+    /**
+     * Записывает строку в текстовом формате COPY: поля через табуляцию, {@code \N} для NULL.
+     */
+    private static void writeCopyRow(Writer writer, Object... values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            if (values[i] == null) {
+                writer.write("\\N");
+                continue;
+            }
+            String value = values[i].toString();
+            for (int j = 0; j < value.length(); j++) {
+                char ch = value.charAt(j);
+                switch (ch) {
+                    case '\\' -> writer.write("\\\\");
+                    case '\t' -> writer.write("\\t");
+                    case '\n' -> writer.write("\\n");
+                    case '\r' -> writer.write("\\r");
+                    default -> writer.write(ch);
                 }
             }
-        });
+        }
+        writer.write('\n');
+    }
 
-        // Добавляем пагинацию
-        sqlBuilder.append(" ORDER BY c.id"); // Важно для консистентной пагинации
-        sqlBuilder.append(" LIMIT ? OFFSET ?");
+    /**
+     * Вставляет или обновляет контрагента и возвращает сохранённую строку вместе с наименованиями
+     * справочников. Признак вставки определяется по {@code xmax = 0}: у строки, созданной текущим
+     * запросом, системная колонка xmax не заполнена. Конкурентные сохранения одного нового ID
+     * не приводят к ошибке первичного ключа — второе из них станет обновлением.
+     */
+    private ContractorSaveResult upsert(Contractor contractor, String userId) {
+        return jdbcTemplate.queryForObject(UPSERT_SQL,
+                (rs, rowNum) -> new ContractorSaveResult(RowMappers.CONTRACTOR_ROW_MAPPER.mapRow(rs, rowNum), rs.getBoolean("inserted")),
+                contractor.getId(), contractor.getParentId(), contractor.getName(),
+                contractor.getNameFull(), contractor.getInn(), contractor.getOgrn(),
+                contractor.getCountryId(), contractor.getIndustryId(), contractor.getOrgFormId(),
+                userId, userId);
+    }
+
+    /**
+     * Выполняет поиск страницы контрагентов и подсчёт общего количества за один запрос.
+     * Общее количество вычисляется оконной функцией {@code COUNT(*) OVER()} до применения LIMIT,
+     * поэтому соединения и LIKE-фильтры выполняются один раз, а не дважды, как при
+     * последовательном вызове {@link #search(Map, int, int)} и {@link #countSearch(Map)}.
+     * Если страница оказалась за пределами результата, количество досчитывается отдельным запросом.
+     *
+     * @param filters Карта (Map) фильтров, где ключ - имя поля, значение - критерий поиска.
+     * @param page Номер страницы (начиная с 0).
+     * @param size Количество элементов на странице.
+     * @return {@link SearchResponse} со страницей и точным общим количеством.
+     */
+    public SearchResponse searchWithCount(Map<String, String> filters, int page, int size) {
+        DictionarySnapshot snapshot = dictionarySnapshotRepository.current();
+        RowMapper<Contractor> rowMapper = contractorRowMapper(snapshot);
+        StringBuilder sqlBuilder = new StringBuilder("SELECT ")
+                .append(CONTRACTOR_COLUMNS)
+                .append(", COUNT(*) OVER() AS total_count ")
+                .append(SEARCH_FROM);
+        List<Object> params = new ArrayList<>();
+        appendFilters(sqlBuilder, params, filters, snapshot);
+
+        sqlBuilder.append(" ORDER BY c.id LIMIT ? OFFSET ?");
         params.add(size);
-        params.add(page * size); // Вычисляем OFFSET
+        params.add(page * size);
 
-        return jdbcTemplate.query(sqlBuilder.toString(), RowMappers.CONTRACTOR_ROW_MAPPER, params.toArray());
+        List<Contractor> contractors = new ArrayList<>();
+        AtomicLong total = new AtomicLong();
+        jdbcTemplate.query(sqlBuilder.toString(), (RowCallbackHandler) rs -> {
+            contractors.add(rowMapper.mapRow(rs, contractors.size()));
+            total.set(rs.getLong("total_count"));
+        }, params.toArray());
+
+        if (contractors.isEmpty() && page > 0) {
+            total.set(countSearch(filters));
+        }
+        return new SearchResponse(contractors, page, size, total.get(), TotalMode.EXACT);
     }
 
     /**
-     * Получает общее количество активных контрагенты, соответствующих заданным фильтрам.
-     * Используется для расчета общего количества страниц в пагинации.
+     * Возвращает оценку количества активных контрагентов, соответствующих фильтрам,
+     * по плану запроса PostgreSQL ({@code EXPLAIN}). Сам запрос не выполняется,
+     * поэтому оценка дешёвая, но может заметно отличаться от точного значения.
      *
      * @param filters Карта (Map) фильтров, где ключ - имя поля, значение - критерий поиска.
-     * @return Общее количество активных контрагентов, соответствующих фильтрам.
+     * @return Оценка количества строк или 0, если план не удалось разобрать.
      */
-    public int countSearch(Map<String, String> filters) {
-        StringBuilder sqlBuilder = new StringBuilder();
-        sqlBuilder.append("SELECT COUNT(*) ")
-                .append("FROM contractor c ")
-                .append("LEFT JOIN country co ON c.country = co.id ")
-                .append("LEFT JOIN industry i ON c.industry = i.id ")
-                .append("LEFT JOIN org_form o ON c.org_form = o.id ")
-                .append("WHERE c.is_active = TRUE"); // Только активные контрагенты
-
+    public long estimateSearch(Map<String, String> filters) {
+        StringBuilder sqlBuilder = new StringBuilder("EXPLAIN (FORMAT JSON) SELECT c.id ").append(SEARCH_FROM);
         List<Object> params = new ArrayList<>();
+        appendFilters(sqlBuilder, params, filters, dictionarySnapshotRepository.current());
+
+        String plan = jdbcTemplate.queryForObject(sqlBuilder.toString(), String.class, params.toArray());
+        Matcher matcher = PLAN_ROWS.matcher(plan != null ? plan : "");
+        if (!matcher.find()) {
+            LOGGER.warn("Не удалось получить оценку количества строк из плана запроса");
+            return 0;
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Добавляет к запросу условия WHERE по переданным фильтрам.
+     * Используется и для выборки страницы, и для подсчёта, чтобы оба запроса
+     * всегда применяли одинаковые критерии.
+     *
+     * @param sqlBuilder Строящийся SQL-запрос, заканчивающийся условием WHERE.
+     * @param params Список параметров запроса, который будет дополнен значениями фильтров.
+     * @param filters Карта (Map) фильтров, где ключ - имя поля, значение - критерий поиска.
+     * @param snapshot Снимок справочников, по которому фильтры по наименованиям переводятся в наборы ID.
+     */
+    private void appendFilters(StringBuilder sqlBuilder, List<Object> params, Map<String, String> filters,
+                               DictionarySnapshot snapshot) {
+        if (filters == null) {
+            return;
+        }
 
         filters.forEach((key, value) -> {
             switch (key) {
+
                 case "contractor_id" -> {
+                    // Точное совпадение
                     sqlBuilder.append(" AND c.id = ?");
                     params.add(value);
                 }
 
                 case "parent_id" -> {
+                    // Точное совпадение
                     sqlBuilder.append(" AND c.parent_id = ?");
                     params.add(value);
                 }
+
                 case "contractor_search" -> {
-                    sqlBuilder.append(" AND (LOWER(c.name) LIKE LOWER(?)" +
-                            " OR LOWER(c.name_full) LIKE LOWER(?)" +
-                            " OR LOWER(c.inn) LIKE LOWER(?)" +
-                            " OR LOWER(c.ogrn) LIKE LOWER(?))");
+                    // Частичное совпадение по нескольким полям (обслуживается GIN-индексами pg_trgm)
+                    sqlBuilder.append(" AND ").append(CONTRACTOR_SEARCH_PREDICATE);
                     String likeValue = "%" + value + "%";
                     params.add(likeValue);
                     params.add(likeValue);
                     params.add(likeValue);
                     params.add(likeValue);
                 }
+
                 case "country" -> {
-                    sqlBuilder.append(" AND LOWER(co.name) LIKE LOWER(?)");
-                    params.add("%" + value + "%");
+                    // Частичное совпадение по country.name, заранее переведённое в набор ID
+                    appendIdSet(sqlBuilder, params, "c.country", snapshot.countryIdsByName(value));
+                }
+
+                case "countryId" -> {
+                    sqlBuilder.append(" AND c.country = ?");
+                    params.add(value);
                 }
-                case "industry" -> {
-                    sqlBuilder.append(" AND c.industry = ?");
 
+                case "industry" -> {
+                    // Точное совпадение
                     try {
                         params.add(Integer.parseInt(value));
+                        sqlBuilder.append(" AND c.industry = ?");
                     } catch (NumberFormatException e) {
-                        LOGGER.warn("Неправильный industry ID формат для фильтра '" + key + "': '" + value + "'. Пропуск фильтра.", e);
+                        LOGGER.warn("Неверный формат industry ID: '{}'. Пропуск фильтра.", value);
                     }
                 }
+
                 case "org_form" -> {
-                    sqlBuilder.append(" AND LOWER(o.name) LIKE LOWER(?)");
-                    params.add("%" + value + "%");
+                    // Частичное совпадение по org_form.name, заранее переведённое в набор ID
+                    appendIdSet(sqlBuilder, params, "c.org_form", snapshot.orgFormIdsByName(value));
                 }
-
                 default -> {
-                    LOGGER.warn("Неизвестный ключ фильтра: " + key);
+                    LOGGER.warn("Необрабатываемый фильтр: {}", key);
                 }
             }
         });
+    }
 
-        Integer count = jdbcTemplate.queryForObject(sqlBuilder.toString(), Integer.class, params.toArray());
-        return count != null ? count : 0;
+    /**
+     * Добавляет условие принадлежности колонки набору ID. Пустой набор означает,
+     * что ни одно наименование не подошло, и запрос не вернёт строк.
+     */
+    private static void appendIdSet(StringBuilder sqlBuilder, List<Object> params, String column, Object[] ids) {
+        if (ids.length == 0) {
+            sqlBuilder.append(" AND FALSE");
+            return;
+        }
+        sqlBuilder.append(" AND ").append(column).append(" = ANY(?)");
+        params.add(ids);
+    }
+
+    /**
+     * Маппер строк таблицы {@code contractor}, дополняющий контрагентов наименованиями из снимка справочников.
+     */
+    private static RowMapper<Contractor> contractorRowMapper(DictionarySnapshot snapshot) {
+        return (rs, rowNum) -> snapshot.enrich(RowMappers.CONTRACTOR_TABLE_ROW_MAPPER.mapRow(rs, rowNum));
+    }
+
+    private static String contractorJson(String createDate, String modifyDate) {
+        return "json_build_object(" +
+                "'id', c.id, 'parentId', c.parent_id, 'name', c.name, 'nameFull', c.name_full, " +
+                "'inn', c.inn, 'ogrn', c.ogrn, 'countryId', c.country, 'industryId', c.industry, 'orgFormId', c.org_form, " +
+                "'createDate', " + createDate + ", 'modifyDate', " + modifyDate + ", " +
+                "'createUserId', c.create_user_id, 'modifyUserId', c.modify_user_id, 'isActive', c.is_active, " +
+                "'countryName', co.name, 'industryName', i.name, 'orgFormName', o.name)::text";
+    }
+
+    /**
+     * Выражение, записывающее колонку {@code TIMESTAMP} JSON-массивом так же, как {@code LocalDateTimeSerializer}.
+     */
+    private static String timestampArray(String column) {
+        String micros = "extract(microseconds FROM " + column + ")::bigint";
+        return "CASE WHEN " + column + " IS NULL THEN NULL ELSE jsonb_build_array(" +
+                "extract(year FROM " + column + ")::int, extract(month FROM " + column + ")::int, " +
+                "extract(day FROM " + column + ")::int, extract(hour FROM " + column + ")::int, " +
+                "extract(minute FROM " + column + ")::int) || CASE " +
+                "WHEN " + micros + " = 0 THEN '[]'::jsonb " +
+                "WHEN " + micros + " % 1000000 = 0 THEN jsonb_build_array(" + micros + " / 1000000) " +
+                "ELSE jsonb_build_array(" + micros + " / 1000000, " + micros + " % 1000000 * 1000) END END";
     }
 
 }
@@ -5,6 +5,7 @@ import com.example.contractor_service.util.RowMappers;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +46,17 @@ public class CountryRepository {
         return countries.stream().findFirst();
     }
 
+    /**
+     * Получает страны по списку идентификаторов одним запросом.
+     *
+     * @param ids Список ID.
+     * @return Список найденных объектов {@link Country}.
+     */
+    public List<Country> findByIds(Collection<String> ids) {
+        String sql = "SELECT id, name FROM country WHERE id = ANY(?)";
+        return jdbcTemplate.query(sql, RowMappers.COUNTRY_ROW_MAPPER, (Object) ids.toArray(new String[0]));
+    }
+
     /**
      * Сохраняет новую страну или обновляет существующую.
      * Если страна с таким ID существует, она обновляется; иначе - создается новая.
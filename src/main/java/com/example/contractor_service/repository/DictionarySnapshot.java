@@ -0,0 +1,111 @@
+package com.example.contractor_service.repository;
+
+import com.example.contractor_service.model.Contractor;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Неизменяемый снимок справочников "country", "industry" и "org_form": наименования по ID.
+ * <p>
+ * Используется вместо LEFT JOIN при чтении контрагентов: строки читаются только из таблицы
+ * {@code contractor}, а наименования подставляются из снимка. Номер версии растёт при каждой
+ * загрузке, поэтому по нему видно, из какого состояния справочников собран ответ.
+ * </p>
+ *
+ * @author sergeJAVA
+ */
+public final class DictionarySnapshot {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final Map<String, String> countryNames;
+    private final Map<Integer, String> industryNames;
+    private final Map<Integer, String> orgFormNames;
+
+    public DictionarySnapshot(long version, Instant loadedAt, Map<String, String> countryNames,
+                              Map<Integer, String> industryNames, Map<Integer, String> orgFormNames) {
+        this.version = version;
+        this.loadedAt = loadedAt;
+        this.countryNames = Map.copyOf(countryNames);
+        this.industryNames = Map.copyOf(industryNames);
+        this.orgFormNames = Map.copyOf(orgFormNames);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * Заполняет наименования страны, индустрии и организационной формы контрагента.
+     *
+     * @param contractor Контрагент, прочитанный из таблицы {@code contractor}.
+     * @return Тот же объект {@link Contractor}.
+     */
+    public Contractor enrich(Contractor contractor) {
+        contractor.setCountryName(contractor.getCountryId() != null ? countryNames.get(contractor.getCountryId()) : null);
+        contractor.setIndustryName(contractor.getIndustryId() != null ? industryNames.get(contractor.getIndustryId()) : null);
+        contractor.setOrgFormName(contractor.getOrgFormId() != null ? orgFormNames.get(contractor.getOrgFormId()) : null);
+        return contractor;
+    }
+
+    /**
+     * Находит ID стран, наименование которых содержит фрагмент без учёта регистра.
+     * Символы {@code %} и {@code _} во фрагменте работают так же, как в LIKE.
+     *
+     * @param fragment Фрагмент наименования.
+     * @return ID подходящих стран.
+     */
+    public String[] countryIdsByName(String fragment) {
+        Pattern pattern = likePattern(fragment);
+        return countryNames.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && pattern.matcher(entry.getValue()).find())
+                .map(Map.Entry::getKey)
+                .toArray(String[]::new);
+    }
+
+    /**
+     * Находит ID организационных форм, наименование которых содержит фрагмент без учёта регистра.
+     * Символы {@code %} и {@code _} во фрагменте работают так же, как в LIKE.
+     *
+     * @param fragment Фрагмент наименования.
+     * @return ID подходящих организационных форм.
+     */
+    public Integer[] orgFormIdsByName(String fragment) {
+        Pattern pattern = likePattern(fragment);
+        return orgFormNames.entrySet().stream()
+                .filter(entry -> entry.getValue() != null && pattern.matcher(entry.getValue()).find())
+                .map(Map.Entry::getKey)
+                .toArray(Integer[]::new);
+    }
+
+    /**
+     * Переводит значение фильтра {@code LIKE '%fragment%'} в регулярное выражение.
+     */
+    private static Pattern likePattern(String fragment) {
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < fragment.length(); i++) {
+            char ch = fragment.charAt(i);
+            if (ch == '%' || ch == '_') {
+                if (!literal.isEmpty()) {
+                    regex.append(Pattern.quote(literal.toString()));
+                    literal.setLength(0);
+                }
+                regex.append(ch == '%' ? ".*" : ".");
+            } else {
+                literal.append(ch);
+            }
+        }
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal.toString()));
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.example.contractor_service.repository;
+
+import com.example.contractor_service.config.redis.CacheInvalidatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хранит в памяти снимок справочников {@link DictionarySnapshot} для обогащения контрагентов.
+ * <p>
+ * Снимок загружается лениво тремя запросами к небольшим таблицам и переиспользуется всеми чтениями.
+ * Он устаревает, когда меняется кеш любого справочника на этом или другом экземпляре
+ * ({@link CacheInvalidatedEvent}), а также не позднее {@code contractor.dictionaries.max-age}
+ * на случай потерянного уведомления. Изменение, пришедшее во время загрузки, не теряется:
+ * снимок запоминает поколение, с которого начиналась загрузка, и следующее чтение загрузит его заново.
+ * </p>
+ *
+ * @author sergeJAVA
+ */
+@Repository
+public class DictionarySnapshotRepository {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DictionarySnapshotRepository.class);
+
+    /**
+     * Кеши полных списков справочников; их сброс означает изменение справочника.
+     */
+    private static final Set<String> DICTIONARY_CACHES = Set.of("countries", "industries", "orgforms");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration maxAge;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile LoadedSnapshot loaded;
+
+    public DictionarySnapshotRepository(JdbcTemplate jdbcTemplate,
+                                        @Value("${contractor.dictionaries.max-age:5m}") Duration maxAge) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Возвращает актуальный снимок справочников, загружая его при необходимости.
+     *
+     * @return Снимок {@link DictionarySnapshot}.
+     */
+    public DictionarySnapshot current() {
+        LoadedSnapshot current = loaded;
+        if (isFresh(current)) {
+            return current.snapshot();
+        }
+        synchronized (this) {
+            current = loaded;
+            if (isFresh(current)) {
+                return current.snapshot();
+            }
+            long loadGeneration = generation.get();
+            DictionarySnapshot snapshot = load(loadGeneration);
+            loaded = new LoadedSnapshot(snapshot, loadGeneration);
+            return snapshot;
+        }
+    }
+
+    /**
+     * Помечает текущий снимок устаревшим; следующее чтение загрузит справочники заново.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    @EventListener
+    public void onCacheInvalidated(CacheInvalidatedEvent event) {
+        if (DICTIONARY_CACHES.contains(event.cacheName())) {
+            invalidate();
+        }
+    }
+
+    private boolean isFresh(LoadedSnapshot current) {
+        return current != null
+                && current.generation() == generation.get()
+                && current.snapshot().getLoadedAt().plus(maxAge).isAfter(Instant.now());
+    }
+
+    private DictionarySnapshot load(long version) {
+        Map<String, String> countries = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM country WHERE name IS NOT NULL",
+                (RowCallbackHandler) rs -> countries.put(rs.getString("id"), rs.getString("name")));
+        Map<Integer, String> industries = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM industry WHERE name IS NOT NULL",
+                (RowCallbackHandler) rs -> industries.put(rs.getInt("id"), rs.getString("name")));
+        Map<Integer, String> orgForms = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM org_form WHERE name IS NOT NULL",
+                (RowCallbackHandler) rs -> orgForms.put(rs.getInt("id"), rs.getString("name")));
+
+        LOGGER.debug("Загружен снимок справочников версии {}: {} стран, {} индустрий, {} орг. форм",
+                version, countries.size(), industries.size(), orgForms.size());
+        return new DictionarySnapshot(version, Instant.now(), countries, industries, orgForms);
+    }
+
+    private record LoadedSnapshot(DictionarySnapshot snapshot, long generation) {
+
+    }
+
+}
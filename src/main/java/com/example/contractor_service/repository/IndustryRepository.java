@@ -5,6 +5,7 @@ import com.example.contractor_service.util.RowMappers;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +46,17 @@ public class IndustryRepository {
         return industries.stream().findFirst();
     }
 
+    /**
+     * Получает индустрии по списку идентификаторов одним запросом.
+     *
+     * @param ids Список ID.
+     * @return Список найденных объектов {@link Industry}.
+     */
+    public List<Industry> findByIds(Collection<Integer> ids) {
+        String sql = "SELECT id, name FROM industry WHERE id = ANY(?)";
+        return jdbcTemplate.query(sql, RowMappers.INDUSTRY_ROW_MAPPER, (Object) ids.toArray(new Integer[0]));
+    }
+
     /**
      * Сохраняет новую индустрию или обновляет существующую.
      *
@@ -5,6 +5,7 @@ import com.example.contractor_service.util.RowMappers;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -45,6 +46,17 @@ public class OrgFormRepository {
         return orgForms.stream().findFirst();
     }
 
+    /**
+     * Получает организационные формы по списку идентификаторов одним запросом.
+     *
+     * @param ids Список ID.
+     * @return Список найденных объектов {@link OrgForm}.
+     */
+    public List<OrgForm> findByIds(Collection<Integer> ids) {
+        String sql = "SELECT id, name FROM org_form WHERE id = ANY(?)";
+        return jdbcTemplate.query(sql, RowMappers.ORG_FORM_ROW_MAPPER, (Object) ids.toArray(new Integer[0]));
+    }
+
     /**
      * Сохраняет новую организационную форму или обновляет существующую.
      *
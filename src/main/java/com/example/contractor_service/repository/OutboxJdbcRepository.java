@@ -0,0 +1,334 @@
+package com.example.contractor_service.repository;
+
+import com.example.contractor_service.model.outbox.MessageStatus;
+import com.example.contractor_service.model.outbox.OutboxMessage;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Репозиторий для работы с таблицей "outbox_messages" посредством {@link JdbcTemplate}.
+ * <p>
+ * В отличие от {@link OutboxRepository}, вставка выполняется одним INSERT без предварительного
+ * SELECT, который Hibernate делает при {@code save} сущности с заранее заданным идентификатором.
+ * </p>
+ * <p>
+ * Порядок сообщений определяется столбцом {@code seq}: его значение берётся из последовательности
+ * по умолчанию в момент вставки строки. Изменение контрагента сначала обновляет его строку
+ * в таблице contractor и держит её блокировку до конца транзакции, поэтому из двух пересекающихся
+ * транзакций, изменивших одного контрагента, больший {@code seq} получает та, что зафиксирована позже.
+ * Время {@code sent_at = NOW()} для этого не подходит: это время начала транзакции, и внутри
+ * одной транзакции оно одинаково у всех сообщений.
+ * </p>
+ *
+ * @author sergeJAVA
+ */
+@Repository
+public class OutboxJdbcRepository {
+
+    /**
+     * Канал PostgreSQL, в который отправляется уведомление о новых сообщениях outbox.
+     */
+    public static final String NOTIFY_CHANNEL = "outbox_messages";
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    /**
+     * Вставка одного сообщения вместе с уведомлением слушателей: один запрос вместо двух.
+     */
+    private static final String INSERT_AND_NOTIFY_SQL = "WITH inserted AS (" +
+            "INSERT INTO outbox_messages (message_id, contractor_id, payload, status, sent_at) " +
+            "VALUES (?, ?, ?, ?, NOW()) RETURNING message_id) " +
+            "SELECT pg_notify('" + NOTIFY_CHANNEL + "', '') FROM inserted";
+
+    /**
+     * Пакетная вставка вместе с уведомлением: порция передаётся массивами и записывается одним запросом,
+     * а {@code pg_notify} вызывается один раз на всю порцию.
+     */
+    private static final String INSERT_BATCH_AND_NOTIFY_SQL = "WITH inserted AS (" +
+            "INSERT INTO outbox_messages (message_id, contractor_id, payload, status, sent_at) " +
+            "SELECT s.message_id, s.contractor_id, s.payload, ?, NOW() " +
+            "FROM unnest(?::uuid[], ?::varchar[], ?::text[]) AS s(message_id, contractor_id, payload) RETURNING 1) " +
+            "SELECT (SELECT COUNT(*) FROM inserted) AS inserted, pg_notify('" + NOTIFY_CHANNEL + "', '')";
+
+    /**
+     * Заменяет payload ожидающего сообщения контрагента, а если такого нет — добавляет новое.
+     * Захваченное диспетчером или отложенное сообщение не меняется: новая версия добавляется
+     * отдельным сообщением и уходит после старой.
+     */
+    private static final String COALESCE_SQL = "WITH updated AS (" +
+            "UPDATE outbox_messages SET payload = ? WHERE contractor_id = ? AND " + ready("") + " RETURNING message_id), " +
+            "inserted AS (INSERT INTO outbox_messages (message_id, contractor_id, payload, status, sent_at) " +
+            "SELECT ?, ?, ?, 'PENDING', NOW() WHERE NOT EXISTS (SELECT 1 FROM updated)) " +
+            "SELECT (SELECT COUNT(*) FROM updated) AS coalesced, pg_notify('" + NOTIFY_CHANNEL + "', '')";
+
+    /**
+     * Пакетный вариант {@link #COALESCE_SQL}: ID контрагентов в порции должны быть уникальны.
+     */
+    private static final String COALESCE_BATCH_SQL = "WITH src AS (" +
+            "SELECT * FROM unnest(?::varchar[], ?::text[]) AS s(contractor_id, payload)), " +
+            "updated AS (UPDATE outbox_messages o SET payload = src.payload FROM src " +
+            "WHERE o.contractor_id = src.contractor_id AND " + ready("o.") + " RETURNING o.contractor_id), " +
+            "inserted AS (INSERT INTO outbox_messages (message_id, contractor_id, payload, status, sent_at) " +
+            "SELECT gen_random_uuid(), src.contractor_id, src.payload, 'PENDING', NOW() FROM src " +
+            "WHERE NOT EXISTS (SELECT 1 FROM updated u WHERE u.contractor_id = src.contractor_id)) " +
+            "SELECT (SELECT COUNT(*) FROM updated) AS coalesced, pg_notify('" + NOTIFY_CHANNEL + "', '')";
+
+    /**
+     * Удаляет ожидающие сообщения, для которых в outbox есть более новое ожидающее сообщение того же контрагента.
+     * Захваченные и отложенные сообщения не удаляются, как и в {@link #COALESCE_SQL}.
+     */
+    private static final String COMPACT_PENDING_SQL = "DELETE FROM outbox_messages o USING outbox_messages n " +
+            "WHERE n.contractor_id = o.contractor_id AND n.status = 'PENDING' AND " + ready("o.") + " " +
+            "AND n.seq > o.seq";
+
+    private static final RowMapper<OutboxMessage> OUTBOX_MESSAGE_ROW_MAPPER = (rs, rowNum) -> OutboxMessage.builder()
+            .messageId(rs.getObject("message_id", UUID.class))
+            .contractorId(rs.getString("contractor_id"))
+            .payload(rs.getString("payload"))
+            .status(MessageStatus.valueOf(rs.getString("status")))
+            .attempts(rs.getInt("attempts"))
+            .sentAt(rs.getTimestamp("sent_at").toLocalDateTime())
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Добавляет сообщение в outbox и в том же запросе отправляет уведомление в канал {@link #NOTIFY_CHANNEL}.
+     *
+     * @param messageId    ID сообщения.
+     * @param contractorId ID контрагента, к которому относится сообщение.
+     * @param payload      Тело сообщения в формате JSON.
+     * @param status       Статус сообщения.
+     */
+    public void insert(UUID messageId, String contractorId, String payload, MessageStatus status) {
+        jdbcTemplate.query(INSERT_AND_NOTIFY_SQL, rs -> null, messageId, contractorId, payload, status.name());
+    }
+
+    /**
+     * Добавляет в outbox несколько сообщений и отправляет уведомление в канал {@link #NOTIFY_CHANNEL}
+     * одним запросом, без отдельного {@link #notifyPending()}.
+     *
+     * @param messages Сообщения в одном статусе; для сообщений без ID генерируется случайный.
+     */
+    public void insertBatchAndNotify(List<OutboxMessage> messages) {
+        String[] messageIds = new String[messages.size()];
+        String[] contractorIds = new String[messages.size()];
+        String[] payloads = new String[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            OutboxMessage message = messages.get(i);
+            messageIds[i] = String.valueOf(message.getMessageId() != null ? message.getMessageId() : UUID.randomUUID());
+            contractorIds[i] = message.getContractorId();
+            payloads[i] = message.getPayload();
+        }
+        jdbcTemplate.query(INSERT_BATCH_AND_NOTIFY_SQL, rs -> null,
+                messages.get(0).getStatus().name(), messageIds, contractorIds, payloads);
+    }
+
+    /**
+     * Записывает последнее состояние контрагента в outbox в режиме уплотнения: ожидающее сообщение
+     * контрагента заменяется, а не дублируется. Уведомление в канал {@link #NOTIFY_CHANNEL}
+     * отправляется тем же запросом.
+     *
+     * @param messageId    ID сообщения, если оно будет добавлено.
+     * @param contractorId ID контрагента.
+     * @param payload      Тело сообщения в формате JSON.
+     * @return {@code true}, если payload заменил уже ожидающее сообщение.
+     */
+    public boolean coalesce(UUID messageId, String contractorId, String payload) {
+        Long coalesced = jdbcTemplate.query(COALESCE_SQL, rs -> rs.next() ? rs.getLong("coalesced") : 0L,
+                payload, contractorId, messageId, contractorId, payload);
+        return coalesced != null && coalesced > 0;
+    }
+
+    /**
+     * Пакетный вариант {@link #coalesce(UUID, String, String)}: вся порция записывается одним запросом.
+     *
+     * @param messages Сообщения с уникальными в пределах порции ID контрагентов.
+     * @return Количество сообщений, заменивших уже ожидающие.
+     */
+    public long coalesceBatch(List<OutboxMessage> messages) {
+        String[] contractorIds = new String[messages.size()];
+        String[] payloads = new String[messages.size()];
+        for (int i = 0; i < messages.size(); i++) {
+            contractorIds[i] = messages.get(i).getContractorId();
+            payloads[i] = messages.get(i).getPayload();
+        }
+        Long coalesced = jdbcTemplate.query(COALESCE_BATCH_SQL, rs -> rs.next() ? rs.getLong("coalesced") : 0L,
+                contractorIds, payloads);
+        return coalesced != null ? coalesced : 0L;
+    }
+
+    /**
+     * Оставляет у каждого контрагента только самое новое ожидающее сообщение.
+     * Используется после записей в outbox в обход {@link #coalesce}, например после импорта CSV.
+     *
+     * @return Количество удалённых устаревших сообщений.
+     */
+    public int compactPending() {
+        return jdbcTemplate.update(COMPACT_PENDING_SQL);
+    }
+
+    /**
+     * Захватывает порцию сообщений в статусе PENDING, время повторной попытки которых наступило, и тем же
+     * запросом откладывает их следующую попытку на время аренды {@code lease}. После выполнения запроса
+     * строки не заблокированы, но другие диспетчеры не захватят их, пока аренда не истечёт, поэтому отправка
+     * идёт вне транзакции. Строки, которые в этот момент захватывают другие экземпляры сервиса, пропускаются
+     * ({@code SKIP LOCKED}), поэтому параллельные диспетчеры получают непересекающиеся порции.
+     * У каждого контрагента захватывается только самое старое по {@code seq} ожидающее сообщение: пока
+     * захваченное сообщение остаётся в PENDING, следующие сообщения контрагента ждут его.
+     * <p>
+     * Если экземпляр сервиса остановится, не записав результат отправки, сообщения будут захвачены
+     * повторно после истечения аренды.
+     * </p>
+     *
+     * @param batchSize Максимальный размер порции.
+     * @param lease     Время, на которое сообщения закрепляются за вызвавшим диспетчером.
+     * @return Захваченные сообщения в порядке {@code seq}.
+     */
+    public List<OutboxMessage> claimPending(int batchSize, Duration lease) {
+        String sql = "WITH claimed AS (SELECT o.message_id FROM outbox_messages o " +
+                "WHERE " + ready("o.") + " " +
+                "AND NOT EXISTS (SELECT 1 FROM outbox_messages p WHERE p.contractor_id = o.contractor_id " +
+                "AND p.status = 'PENDING' AND p.seq < o.seq) " +
+                "ORDER BY o.seq LIMIT ? FOR UPDATE OF o SKIP LOCKED), " +
+                "leased AS (UPDATE outbox_messages o SET next_attempt_at = NOW() + make_interval(secs => ?) " +
+                "FROM claimed WHERE o.message_id = claimed.message_id " +
+                "RETURNING o.message_id, o.contractor_id, o.payload, o.status, o.attempts, o.sent_at, o.seq) " +
+                "SELECT message_id, contractor_id, payload, status, attempts, sent_at FROM leased ORDER BY seq";
+        return jdbcTemplate.query(sql, OUTBOX_MESSAGE_ROW_MAPPER, batchSize, lease.toMillis() / 1000.0);
+    }
+
+    /**
+     * Переводит сообщения в новый статус одним запросом и обновляет время отправки.
+     *
+     * @param messageIds ID сообщений.
+     * @param status     Новый статус.
+     * @return Количество обновлённых строк.
+     */
+    public int updateStatus(List<UUID> messageIds, MessageStatus status) {
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE outbox_messages SET status = ?, sent_at = NOW() WHERE message_id = ANY(?)";
+        return jdbcTemplate.update(sql, ps -> {
+            ps.setString(1, status.name());
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", messageIds.toArray()));
+        });
+    }
+
+    /**
+     * Отправляет уведомление в канал {@link #NOTIFY_CHANNEL}. PostgreSQL доставляет его слушателям
+     * только после фиксации текущей транзакции и схлопывает одинаковые уведомления внутри неё,
+     * поэтому метод можно вызывать после каждой вставки.
+     */
+    public void notifyPending() {
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, '')", Object.class, NOTIFY_CHANNEL);
+    }
+
+    /**
+     * Удаляет порцию отправленных сообщений старше заданного момента. Строки, заблокированные
+     * другими транзакциями, пропускаются, поэтому удаление не конкурирует с диспетчером.
+     *
+     * @param sentBefore Граница времени отправки.
+     * @param batchSize  Максимальное количество удаляемых строк.
+     * @return Количество удалённых строк.
+     */
+    public int deleteSentBefore(LocalDateTime sentBefore, int batchSize) {
+        String sql = "DELETE FROM outbox_messages WHERE message_id IN (" +
+                "SELECT message_id FROM outbox_messages WHERE status = ? AND sent_at < ? " +
+                "ORDER BY sent_at LIMIT ? FOR UPDATE SKIP LOCKED)";
+        return jdbcTemplate.update(sql, MessageStatus.SENT.name(), Timestamp.valueOf(sentBefore), batchSize);
+    }
+
+    /**
+     * @return Размер таблицы outbox вместе с индексами и TOAST в байтах.
+     */
+    public long tableSize() {
+        Long size = jdbcTemplate.queryForObject("SELECT pg_total_relation_size('outbox_messages')", Long.class);
+        return size != null ? size : 0L;
+    }
+
+    /**
+     * Фиксирует неудачную попытку отправки: увеличивает счётчик попыток, сохраняет ошибку и откладывает
+     * следующую попытку на случайное время от нуля до {@code min(maxBackoff, initialBackoff * 2^attempts)}.
+     * Сообщения, исчерпавшие {@code maxAttempts} попыток, переводятся в статус DEAD_LETTER.
+     *
+     * @param messageIds     ID сообщений.
+     * @param error          Описание ошибки.
+     * @param maxAttempts    Максимальное количество попыток.
+     * @param initialBackoff Базовая задержка.
+     * @param maxBackoff     Максимальная задержка.
+     * @return Количество сообщений, переведённых в DEAD_LETTER.
+     */
+    public int recordFailure(List<UUID> messageIds, String error, int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        if (messageIds.isEmpty()) {
+            return 0;
+        }
+        String sql = "UPDATE outbox_messages SET attempts = attempts + 1, last_error = ?, " +
+                "status = CASE WHEN attempts + 1 >= ? THEN 'DEAD_LETTER' ELSE status END, " +
+                "next_attempt_at = NOW() + make_interval(secs => random() * LEAST(?, ? * power(2, LEAST(attempts, 30)))) " +
+                "WHERE message_id = ANY(?) RETURNING status";
+        List<String> statuses = jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql);
+            ps.setString(1, error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            ps.setInt(2, maxAttempts);
+            ps.setDouble(3, maxBackoff.toMillis() / 1000.0);
+            ps.setDouble(4, initialBackoff.toMillis() / 1000.0);
+            ps.setArray(5, con.createArrayOf("uuid", messageIds.toArray()));
+            return ps;
+        }, (rs, rowNum) -> rs.getString("status"));
+        return (int) statuses.stream().filter(MessageStatus.DEAD_LETTER.name()::equals).count();
+    }
+
+    /**
+     * Возвращает сообщения из статуса DEAD_LETTER в очередь со сброшенным счётчиком попыток.
+     * <p>
+     * Диспетчер не ждёт сообщений в DEAD_LETTER, поэтому более новые сообщения того же контрагента
+     * к моменту возврата уже могли уйти. Такие сообщения не возвращаются в очередь, а переводятся
+     * в статус SUPERSEDED, чтобы старый снимок контрагента не был отправлен после нового.
+     * </p>
+     *
+     * @param messageIds ID сообщений; {@code null} или пустой список означает все сообщения в DEAD_LETTER.
+     * @return Количество возвращённых в очередь сообщений.
+     */
+    public int replayDeadLetters(List<UUID> messageIds) {
+        boolean all = messageIds == null || messageIds.isEmpty();
+        String filter = all ? "" : " AND d.message_id = ANY(?)";
+        String sql = "WITH superseded AS (UPDATE outbox_messages d SET status = 'SUPERSEDED' " +
+                "WHERE d.status = 'DEAD_LETTER'" + filter + " AND EXISTS (SELECT 1 FROM outbox_messages n " +
+                "WHERE n.contractor_id = d.contractor_id AND n.seq > d.seq) RETURNING d.message_id) " +
+                "UPDATE outbox_messages d SET status = 'PENDING', attempts = 0, next_attempt_at = NULL, last_error = NULL " +
+                "WHERE d.status = 'DEAD_LETTER'" + filter + " AND d.message_id NOT IN (SELECT message_id FROM superseded)";
+        if (all) {
+            return jdbcTemplate.update(sql);
+        }
+        return jdbcTemplate.update(sql, ps -> {
+            ps.setArray(1, ps.getConnection().createArrayOf("uuid", messageIds.toArray()));
+            ps.setArray(2, ps.getConnection().createArrayOf("uuid", messageIds.toArray()));
+        });
+    }
+
+    /**
+     * Условие «ожидающее сообщение, время попытки которого наступило». Сообщение, захваченное
+     * диспетчером ({@link #claimPending}) или отложенное после неудачной попытки, под него не попадает:
+     * захваченное может уже отправляться, поэтому его нельзя ни менять, ни удалять.
+     *
+     * @param alias Префикс колонок: псевдоним таблицы с точкой или пустая строка.
+     */
+    private static String ready(String alias) {
+        return alias + "status = 'PENDING' AND (" + alias + "next_attempt_at IS NULL OR " + alias + "next_attempt_at <= NOW())";
+    }
+
+}
@@ -1,11 +1,21 @@
 package com.example.contractor_service.service;
 
+import com.example.contractor_service.model.BulkSaveResult;
 import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.ContractorSaveResult;
+import com.example.contractor_service.model.ExportFormat;
+import com.example.contractor_service.model.SearchResponse;
+import com.example.contractor_service.model.TotalMode;
 import com.example.contractor_service.repository.ContractorRepository;
+import com.example.contractor_service.util.ContractorCsvReader;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Сервис для управления операциями, связанными с контрагентами.
@@ -16,6 +26,16 @@ public interface ContractorService {
 
     List<Contractor> findAll();
 
+    /**
+     * Передаёт всех активных контрагентов в обработчик по мере чтения из базы,
+     * не загружая весь набор в память. Выполняется в транзакции только для чтения,
+     * чтобы драйвер мог читать строки курсором.
+     *
+     * @param consumer Обработчик, получающий каждого контрагента.
+     * @return Количество переданных контрагентов.
+     */
+    int streamAll(Consumer<Contractor> consumer);
+
     /**
      * Находит контрагента по его уникальному идентификатору.
      *
@@ -27,11 +47,12 @@ public interface ContractorService {
     /**
      * Сохраняет нового контрагента или обновляет существующего.
      * Если контрагент с таким ID существует, он будет обновлен; в противном случае будет создан новый.
+     * Запись контрагента и сообщение outbox о его изменении сохраняются в одной транзакции.
      *
      * @param contractor Объект {@link Contractor} для сохранения или обновления.
-     * @return Сохраненный или обновленный объект {@link Contractor}.
+     * @return {@link ContractorSaveResult} с сохранённой записью и признаком того, была ли она создана.
      */
-    Contractor save(Contractor contractor);
+    ContractorSaveResult save(Contractor contractor);
 
     /**
      * Выполняет логическое удаление контрагента по его идентификатору.
@@ -65,6 +86,57 @@ public interface ContractorService {
      */
     int countSearch(java.util.Map<String, String> filters);
 
-    Contractor save(Contractor contractor, Long userId);
+    /**
+     * Выполняет поиск страницы контрагентов и формирует ответ с информацией о пагинации.
+     * Если передан курсор {@code after}, используется keyset-пагинация и номер страницы игнорируется.
+     * В ответе заполняется {@code nextCursor}, если страница заполнена полностью.
+     * В режиме {@link TotalMode#EXACT} с OFFSET-пагинацией страница и общее количество
+     * получаются одним запросом.
+     *
+     * @param filters Карта, содержащая критерии фильтрации (см. {@link #search(Map, int, int)}).
+     * @param page Номер страницы для OFFSET-пагинации.
+     * @param size Количество элементов на странице.
+     * @param after Курсор из {@code nextCursor} предыдущего ответа или {@code null}.
+     * @param totalMode Режим вычисления общего количества; {@code null} означает {@link TotalMode#EXACT}.
+     * @return {@link SearchResponse} со страницей контрагентов.
+     * @throws IllegalArgumentException Если курсор повреждён.
+     */
+    SearchResponse searchPage(Map<String, String> filters, int page, int size, String after, TotalMode totalMode);
+
+    ContractorSaveResult save(Contractor contractor, Long userId);
+
+    /**
+     * Массово сохраняет контрагентов порциями размером {@code contractor.bulk.batch-size}.
+     * Каждая порция сохраняется одним многострочным upsert'ом вместе с пакетной записью в outbox
+     * в отдельной транзакции. Если порция не сохраняется целиком, её записи повторяются по одной,
+     * чтобы ошибочные строки не мешали остальным. Повторы ID внутри порции схлопываются до последнего.
+     *
+     * @param contractors Поток контрагентов; читается последовательно, не накапливаясь в памяти.
+     * @param userId ID пользователя, выполняющего изменение, или {@code null}.
+     * @return {@link BulkSaveResult} с количеством созданных, обновлённых и не сохранённых записей.
+     */
+    BulkSaveResult bulkSave(Iterator<Contractor> contractors, Long userId);
+
+    /**
+     * Импортирует контрагентов из CSV (формат см. {@link ContractorCsvReader}) в одной транзакции:
+     * строки передаются в PostgreSQL через {@code COPY} во временную таблицу, после чего переносятся
+     * в {@code contractor} и outbox одним запросом.
+     *
+     * @param csv Тело запроса с CSV; читается потоково.
+     * @param userId ID пользователя, выполняющего импорт, или {@code null}.
+     * @return {@link BulkSaveResult}; некорректные строки CSV и строки со ссылками на несуществующие записи
+     * учитываются как не сохранённые.
+     */
+    BulkSaveResult importCsv(InputStream csv, Long userId);
+
+    /**
+     * Выгружает всех активных контрагентов, подходящих под фильтры, в поток без накопления в памяти.
+     *
+     * @param filters Карта, содержащая критерии фильтрации (см. {@link #search(Map, int, int)}).
+     * @param format Формат выгрузки.
+     * @param out Поток, в который записываются данные.
+     * @return Количество выгруженных контрагентов.
+     */
+    long export(Map<String, String> filters, ExportFormat format, OutputStream out);
 
 }
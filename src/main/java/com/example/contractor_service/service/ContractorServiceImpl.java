@@ -1,48 +1,162 @@
 package com.example.contractor_service.service;
 
+import com.example.contractor_service.model.BulkSaveResult;
 import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.ContractorSaveResult;
+import com.example.contractor_service.model.ExportFormat;
+import com.example.contractor_service.model.SearchResponse;
+import com.example.contractor_service.model.TotalMode;
 import com.example.contractor_service.repository.ContractorRepository;
+import com.example.contractor_service.service.cache.ContractorCache;
+import com.example.contractor_service.service.outbox.OutboxMessageService;
+import com.example.contractor_service.service.search.InMemoryContractorSearch;
+import com.example.contractor_service.util.ContractorCsvReader;
+import com.example.contractor_service.util.CursorUtil;
 import com.webbee.audit_lib.annotation.AuditLog;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.logging.LogLevel;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class ContractorServiceImpl implements ContractorService {
 
     private final ContractorRepository contractorRepository;
+    private final InMemoryContractorSearch inMemorySearch;
+    private final ContractorCache contractorCache;
+    private final OutboxMessageService outboxMessageService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${contractor.bulk.batch-size:1000}")
+    private int bulkBatchSize;
 
     @Override
     public List<Contractor> findAll() {
         return contractorRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public int streamAll(Consumer<Contractor> consumer) {
+        return contractorRepository.streamAll(consumer);
+    }
+
     @Override
     public Optional<Contractor> findById(String id) {
-        return contractorRepository.findById(id);
+        return contractorCache.get(id, contractorRepository::findById);
+    }
+
+    @Override
+    @AuditLog
+    @Transactional
+    public ContractorSaveResult save(Contractor contractor) {
+        ContractorSaveResult saved = contractorRepository.save(contractor);
+        outboxMessageService.saveContractor(saved.getContractor());
+        inMemorySearch.onSaved(saved.getContractor());
+        contractorCache.onSaved(saved.getContractor());
+        return saved;
     }
 
     @Override
     @AuditLog
-    public Contractor save(Contractor contractor) {
-        return contractorRepository.save(contractor);
+    @Transactional
+    public ContractorSaveResult save(Contractor contractor, Long userId) {
+        ContractorSaveResult saved = contractorRepository.save(contractor, userId);
+        outboxMessageService.saveContractor(saved.getContractor());
+        inMemorySearch.onSaved(saved.getContractor());
+        contractorCache.onSaved(saved.getContractor());
+        return saved;
     }
 
     @Override
     @AuditLog
-    public Contractor save(Contractor contractor, Long userId) {
-        return contractorRepository.save(contractor, userId);
+    public BulkSaveResult bulkSave(Iterator<Contractor> contractors, Long userId) {
+        long inserted = 0;
+        long updated = 0;
+        long failed = 0;
+        while (contractors.hasNext()) {
+            Map<String, Contractor> batch = new LinkedHashMap<>();
+            while (contractors.hasNext() && batch.size() < bulkBatchSize) {
+                Contractor contractor = contractors.next();
+                if (contractor == null || contractor.getId() == null || contractor.getId().isEmpty()) {
+                    failed++;
+                } else {
+                    batch.remove(contractor.getId());
+                    batch.put(contractor.getId(), contractor);
+                }
+            }
+            List<ContractorSaveResult> saved = saveBulkBatch(new ArrayList<>(batch.values()), userId);
+            for (ContractorSaveResult result : saved) {
+                if (result.isCreated()) {
+                    inserted++;
+                } else {
+                    updated++;
+                }
+            }
+            failed += batch.size() - saved.size();
+        }
+        log.info("Bulk save finished: inserted={}, updated={}, failed={}", inserted, updated, failed);
+        return new BulkSaveResult(inserted, updated, failed);
+    }
+
+    @Override
+    @AuditLog
+    @Transactional
+    public BulkSaveResult importCsv(InputStream csv, Long userId) {
+        ContractorCsvReader reader = new ContractorCsvReader(csv);
+        // Затронутые строки после фиксации находятся по времени транзакции, а не по накопленному списку ID.
+        LocalDateTime importedAt = contractorRepository.currentTimestamp();
+        BulkSaveResult imported = contractorRepository.importContractors(reader, userId);
+        long changed = imported.getInserted() + imported.getUpdated();
+        if (changed > 0) {
+            outboxMessageService.onExternalInsert();
+            inMemorySearch.onBulkChange(changed, chunks ->
+                    contractorRepository.forEachModified(importedAt, userId, bulkBatchSize, chunks));
+            contractorCache.onBulkChange(chunks -> contractorRepository.forEachModified(importedAt, userId, bulkBatchSize,
+                    chunk -> chunks.accept(chunk.stream()
+                            .map(Contractor::getId)
+                            .toList())));
+        }
+
+        BulkSaveResult result = new BulkSaveResult(imported.getInserted(), imported.getUpdated(),
+                imported.getFailed() + reader.getSkipped());
+        log.info("CSV import finished: inserted={}, updated={}, failed={}", result.getInserted(), result.getUpdated(), result.getFailed());
+        return result;
+    }
+
+    @Override
+    public long export(Map<String, String> filters, ExportFormat format, OutputStream out) {
+        return contractorRepository.export(filters, format, out);
     }
 
     @Override
     @AuditLog(logLevel = LogLevel.INFO)
     public int delete(String id) {
-        return contractorRepository.delete(id);
+        int deleted = contractorRepository.delete(id);
+        if (deleted > 0) {
+            inMemorySearch.onDeleted(id);
+            contractorCache.onDeleted(id);
+        }
+        return deleted;
     }
 
     @Override
@@ -52,7 +166,107 @@ public class ContractorServiceImpl implements ContractorService {
 
     @Override
     public int countSearch(Map<String, String> filters) {
+        if (inMemorySearch.canServe(filters)) {
+            return inMemorySearch.count(filters);
+        }
         return contractorRepository.countSearch(filters);
     }
 
+    @Override
+    public SearchResponse searchPage(Map<String, String> filters, int page, int size, String after, TotalMode totalMode) {
+        TotalMode mode = totalMode != null ? totalMode : TotalMode.EXACT;
+
+        // Курсор продолжает выборку в том порядке, в котором выдан: курсор SQL-поиска встроенный поиск не обслуживает.
+        boolean binaryOrder = after != null && CursorUtil.isBinaryOrder(after);
+        SearchResponse response;
+        if (inMemorySearch.canServe(filters) && (after == null || binaryOrder)) {
+            response = searchInMemory(filters, page, size, after, mode);
+            binaryOrder = true;
+        } else if (after == null && mode == TotalMode.EXACT) {
+            response = contractorRepository.searchWithCount(filters, page, size);
+        } else {
+            List<Contractor> contractors = after != null
+                    ? contractorRepository.searchAfter(filters, CursorUtil.decode(after), binaryOrder, size)
+                    : contractorRepository.search(filters, page, size);
+            long totalElements = switch (mode) {
+                case NONE -> -1;
+                case ESTIMATE -> contractorRepository.estimateSearch(filters);
+                default -> contractorRepository.countSearch(filters);
+            };
+            response = new SearchResponse(contractors, page, size, totalElements, mode);
+        }
+
+        List<Contractor> contractors = response.getContractors();
+        if (contractors.size() == size) {
+            String lastId = contractors.get(contractors.size() - 1).getId();
+            response.setNextCursor(binaryOrder ? CursorUtil.encodeBinaryOrder(lastId) : CursorUtil.encode(lastId));
+        }
+        return response;
+    }
+
+    /**
+     * Определяет состав страницы по встроенному индексу и загружает из базы только её записи.
+     * Общее количество в этом режиме всегда точное и не требует обращения к базе.
+     * <p>
+     * Индекс сортирует ID через {@link String#compareTo}, а не в порядке сравнения базы, поэтому
+     * страницы выдаются с курсором побайтового порядка. Если индекс недоступен, такой курсор
+     * продолжается SQL-поиском с тем же порядком; курсор SQL-поиска сюда не попадает.
+     * </p>
+     */
+    private SearchResponse searchInMemory(Map<String, String> filters, int page, int size, String after, TotalMode mode) {
+        List<String> ids = inMemorySearch.findIds(filters);
+
+        int from;
+        if (after != null) {
+            int position = Collections.binarySearch(ids, CursorUtil.decode(after));
+            from = position >= 0 ? position + 1 : -position - 1;
+        } else {
+            from = (int) Math.min((long) page * size, ids.size());
+        }
+        List<String> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+
+        List<Contractor> contractors = new ArrayList<>(contractorRepository.findAllByIds(pageIds));
+        contractors.sort(Comparator.comparing(Contractor::getId));
+        return new SearchResponse(contractors, page, size, ids.size(), mode);
+    }
+
+    /**
+     * Сохраняет порцию одним запросом, а при ошибке — построчно, каждую запись в своей транзакции.
+     *
+     * @return Результаты для успешно сохранённых записей.
+     */
+    private List<ContractorSaveResult> saveBulkBatch(List<Contractor> batch, Long userId) {
+        if (batch.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return transactionTemplate.execute(status -> persistBulk(batch, userId));
+        } catch (DataAccessException e) {
+            log.warn("Bulk batch of {} contractors failed, retrying row by row: {}", batch.size(), e.getMessage());
+        }
+
+        List<ContractorSaveResult> saved = new ArrayList<>(batch.size());
+        for (Contractor contractor : batch) {
+            try {
+                saved.addAll(transactionTemplate.execute(status -> persistBulk(List.of(contractor), userId)));
+            } catch (DataAccessException e) {
+                log.warn("Failed to save contractor {} in bulk: {}", contractor.getId(), e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    private List<ContractorSaveResult> persistBulk(List<Contractor> contractors, Long userId) {
+        List<ContractorSaveResult> saved = contractorRepository.saveBatch(contractors, userId);
+        List<Contractor> rows = saved.stream()
+                .map(ContractorSaveResult::getContractor)
+                .toList();
+        outboxMessageService.saveContractors(rows);
+        inMemorySearch.onSaved(rows);
+        contractorCache.onBulkChange(rows.stream()
+                .map(Contractor::getId)
+                .toList());
+        return saved;
+    }
+
 }
@@ -3,6 +3,7 @@ package com.example.contractor_service.service;
 import com.example.contractor_service.model.Country;
 import com.example.contractor_service.repository.CountryRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,15 @@ public interface CountryService {
      */
     Optional<Country> findById(String id);
 
+    /**
+     * Находит страны по списку идентификаторов.
+     * Отсутствующие в кеше записи загружаются из базы одним запросом.
+     *
+     * @param ids Список идентификаторов стран.
+     * @return Список найденных объектов {@link Country} в порядке переданных идентификаторов.
+     */
+    List<Country> findByIds(Collection<String> ids);
+
     /**
      * Сохраняет новую страну или обновляет существующую.
      * Если страна с таким ID существует, она будет обновлена; в противном случае будет создана новая.
@@ -2,11 +2,16 @@ package com.example.contractor_service.service;
 
 import com.example.contractor_service.model.Country;
 import com.example.contractor_service.repository.CountryRepository;
+import com.example.contractor_service.util.CacheUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +20,9 @@ import java.util.Optional;
 public class CountryServiceImpl implements CountryService {
 
     private final CountryRepository countryRepository;
-    private static final String COUNTRIES_PREFIX = "countries";
+    private final CacheManager cacheManager;
+    static final String COUNTRIES_PREFIX = "countries";
+    static final String COUNTRY_BY_ID = "countries_by_id";
 
     @Override
     @Cacheable(value = COUNTRIES_PREFIX, key = "'all'")
@@ -24,18 +31,28 @@ public class CountryServiceImpl implements CountryService {
     }
 
     @Override
+    @Cacheable(value = COUNTRY_BY_ID, key = "#id", unless = "#result == null")
     public Optional<Country> findById(String id) {
         return countryRepository.findById(id);
     }
 
     @Override
-    @CacheEvict(value = COUNTRIES_PREFIX, allEntries = true)
+    public List<Country> findByIds(Collection<String> ids) {
+        return CacheUtil.getAll(cacheManager.getCache(COUNTRY_BY_ID), ids, countryRepository::findByIds, Country::getId);
+    }
+
+    @Override
+    @Caching(put = @CachePut(value = COUNTRY_BY_ID, key = "#result.id"),
+            evict = @CacheEvict(value = COUNTRIES_PREFIX, key = "'all'"))
     public Country save(Country country) {
         return countryRepository.save(country);
     }
 
     @Override
-    @CacheEvict(value = COUNTRIES_PREFIX, allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = COUNTRY_BY_ID, key = "#id"),
+            @CacheEvict(value = COUNTRIES_PREFIX, key = "'all'")
+    })
     public int delete(String id) {
         return countryRepository.delete(id);
     }
@@ -0,0 +1,66 @@
+package com.example.contractor_service.service;
+
+import com.example.contractor_service.model.Country;
+import com.example.contractor_service.model.Industry;
+import com.example.contractor_service.model.OrgForm;
+import com.example.contractor_service.repository.CountryRepository;
+import com.example.contractor_service.repository.IndustryRepository;
+import com.example.contractor_service.repository.OrgFormRepository;
+import com.example.contractor_service.util.CacheUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Прогрев кешей справочников после старта приложения.
+ * <p>
+ * Справочные таблицы к этому моменту уже заполнены {@link com.example.contractor_service.util.DataLoader},
+ * поэтому каждая читается одним запросом, а результат пачкой записывается и в кеш полного списка,
+ * и в кеш записей по идентификатору. Ошибка прогрева не мешает старту: кеши заполнятся при первых запросах.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cache.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class DictionaryCacheWarmer {
+
+    private final CountryRepository countryRepository;
+    private final IndustryRepository industryRepository;
+    private final OrgFormRepository orgFormRepository;
+    private final CacheManager cacheManager;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            int entries = warmUp(CountryServiceImpl.COUNTRIES_PREFIX, CountryServiceImpl.COUNTRY_BY_ID,
+                    countryRepository.findAll(), Country::getId)
+                    + warmUp(IndustryServiceImpl.INDUSTRIES_PREFIX, IndustryServiceImpl.INDUSTRY_BY_ID,
+                    industryRepository.findAll(), Industry::getId)
+                    + warmUp(OrgFormServiceImpl.ORG_FORMS_PREFIX, OrgFormServiceImpl.ORG_FORM_BY_ID,
+                    orgFormRepository.findAll(), OrgForm::getId);
+            log.info("Dictionary caches warmed up with {} entries in {} ms", entries, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Dictionary cache warmup failed", e);
+        }
+    }
+
+    private <K, V> int warmUp(String listCacheName, String byIdCacheName, List<V> values, Function<V, K> idExtractor) {
+        Cache listCache = cacheManager.getCache(listCacheName);
+        if (listCache != null) {
+            listCache.put("all", values);
+        }
+        CacheUtil.putAll(cacheManager.getCache(byIdCacheName), values, idExtractor);
+        return values.size();
+    }
+
+}
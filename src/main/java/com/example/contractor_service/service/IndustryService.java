@@ -3,6 +3,7 @@ package com.example.contractor_service.service;
 import com.example.contractor_service.model.Industry;
 import com.example.contractor_service.repository.IndustryRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,15 @@ public interface IndustryService {
      */
     Optional<Industry> findById(int id);
 
+    /**
+     * Находит индустрии по списку идентификаторов.
+     * Отсутствующие в кеше записи загружаются из базы одним запросом.
+     *
+     * @param ids Список идентификаторов индустрий.
+     * @return Список найденных объектов {@link Industry} в порядке переданных идентификаторов.
+     */
+    List<Industry> findByIds(Collection<Integer> ids);
+
     /**
      * Сохраняет новую индустрию или обновляет существующую.
      * Если индустрия с таким ID существует, она будет обновлена; в противном случае будет создана новая.
@@ -2,11 +2,16 @@ package com.example.contractor_service.service;
 
 import com.example.contractor_service.model.Industry;
 import com.example.contractor_service.repository.IndustryRepository;
+import com.example.contractor_service.util.CacheUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +20,9 @@ import java.util.Optional;
 public class IndustryServiceImpl implements IndustryService {
 
     private final IndustryRepository industryRepository;
-    private static final String INDUSTRIES_PREFIX = "industries";
+    private final CacheManager cacheManager;
+    static final String INDUSTRIES_PREFIX = "industries";
+    static final String INDUSTRY_BY_ID = "industries_by_id";
 
     @Override
     @Cacheable(value = INDUSTRIES_PREFIX, key = "'all'")
@@ -24,18 +31,28 @@ public class IndustryServiceImpl implements IndustryService {
     }
 
     @Override
+    @Cacheable(value = INDUSTRY_BY_ID, key = "#id", unless = "#result == null")
     public Optional<Industry> findById(int id) {
         return industryRepository.findById(id);
     }
 
     @Override
-    @CacheEvict(value = INDUSTRIES_PREFIX, allEntries = true)
+    public List<Industry> findByIds(Collection<Integer> ids) {
+        return CacheUtil.getAll(cacheManager.getCache(INDUSTRY_BY_ID), ids, industryRepository::findByIds, Industry::getId);
+    }
+
+    @Override
+    @Caching(put = @CachePut(value = INDUSTRY_BY_ID, key = "#result.id"),
+            evict = @CacheEvict(value = INDUSTRIES_PREFIX, key = "'all'"))
     public Industry save(Industry industry) {
         return industryRepository.save(industry);
     }
 
     @Override
-    @CacheEvict(value = INDUSTRIES_PREFIX, allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = INDUSTRY_BY_ID, key = "#id"),
+            @CacheEvict(value = INDUSTRIES_PREFIX, key = "'all'")
+    })
     public int delete(int id) {
         return industryRepository.delete(id);
     }
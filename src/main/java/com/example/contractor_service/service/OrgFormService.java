@@ -3,6 +3,7 @@ package com.example.contractor_service.service;
 import com.example.contractor_service.model.OrgForm;
 import com.example.contractor_service.repository.OrgFormRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,6 +29,15 @@ public interface OrgFormService {
      */
     Optional<OrgForm> findById(int id);
 
+    /**
+     * Находит организационные формы по списку идентификаторов.
+     * Отсутствующие в кеше записи загружаются из базы одним запросом.
+     *
+     * @param ids Список идентификаторов организационных форм.
+     * @return Список найденных объектов {@link OrgForm} в порядке переданных идентификаторов.
+     */
+    List<OrgForm> findByIds(Collection<Integer> ids);
+
     /**
      * Сохраняет новую организационную форму или обновляет существующую.
      * Если организационная форма с таким ID существует, она будет обновлена; в противном случае будет создана новая.
@@ -2,11 +2,16 @@ package com.example.contractor_service.service;
 
 import com.example.contractor_service.model.OrgForm;
 import com.example.contractor_service.repository.OrgFormRepository;
+import com.example.contractor_service.util.CacheUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,7 +20,9 @@ import java.util.Optional;
 public class OrgFormServiceImpl implements OrgFormService {
 
     private final OrgFormRepository orgFormRepository;
-    private static final String ORG_FORMS_PREFIX = "orgforms";
+    private final CacheManager cacheManager;
+    static final String ORG_FORMS_PREFIX = "orgforms";
+    static final String ORG_FORM_BY_ID = "orgforms_by_id";
 
     @Override
     @Cacheable(value = ORG_FORMS_PREFIX, key = "'all'")
@@ -24,18 +31,28 @@ public class OrgFormServiceImpl implements OrgFormService {
     }
 
     @Override
+    @Cacheable(value = ORG_FORM_BY_ID, key = "#id", unless = "#result == null")
     public Optional<OrgForm> findById(int id) {
         return orgFormRepository.findById(id);
     }
 
     @Override
-    @CacheEvict(value = ORG_FORMS_PREFIX, allEntries = true)
+    public List<OrgForm> findByIds(Collection<Integer> ids) {
+        return CacheUtil.getAll(cacheManager.getCache(ORG_FORM_BY_ID), ids, orgFormRepository::findByIds, OrgForm::getId);
+    }
+
+    @Override
+    @Caching(put = @CachePut(value = ORG_FORM_BY_ID, key = "#result.id"),
+            evict = @CacheEvict(value = ORG_FORMS_PREFIX, key = "'all'"))
     public OrgForm save(OrgForm orgForm) {
         return orgFormRepository.save(orgForm);
     }
 
     @Override
-    @CacheEvict(value = ORG_FORMS_PREFIX, allEntries = true)
+    @Caching(evict = {
+            @CacheEvict(value = ORG_FORM_BY_ID, key = "#id"),
+            @CacheEvict(value = ORG_FORMS_PREFIX, key = "'all'")
+    })
     public int delete(int id) {
         return orgFormRepository.delete(id);
     }
@@ -0,0 +1,279 @@
+package com.example.contractor_service.service.cache;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.repository.DictionarySnapshotRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@code ContractorCache} — кеш контрагентов по ID в Redis со сквозным чтением.
+ * <p>
+ * Найденный контрагент хранится в JSON не дольше {@code contractor.cache.ttl}. Отсутствующий ID
+ * кешируется пустой строкой-меткой на {@code contractor.cache.negative-ttl}, поэтому запросы
+ * несуществующих ID не доходят до базы. Наименования справочников при каждом чтении подставляются
+ * из текущего снимка справочников, поэтому переименование страны не требует сброса кеша.
+ * </p>
+ * <p>
+ * Одновременные промахи по одному ID в пределах экземпляра схлопываются: в базу идёт один запрос,
+ * остальные потоки ждут его результат. Сохранение, удаление и массовые операции заменяют только
+ * затронутые ключи меткой сброса; внутри транзакции это делается после её фиксации. Запись после фиксации
+ * не упорядочена с конкурирующими сохранениями, поэтому кеш заполняет только следующее чтение из базы.
+ * Ошибки Redis не мешают чтению: запрос обслуживается базой.
+ * </p>
+ * <p>
+ * Результат загрузки при промахе записывается только в отсутствующий ключ ({@code SET NX}): загрузка могла
+ * прочитать строку до фиксации конкурирующего изменения и не должна затирать записанное после неё значение.
+ * Метка сброса живёт {@code contractor.cache.eviction-marker-ttl}; пока она есть, чтение идёт в базу,
+ * а запоздавшая загрузка не может вернуть в кеш состояние контрагента до удаления.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ContractorCache {
+
+    static final String KEY_PREFIX = "contractor::";
+
+    /**
+     * Значение-метка для ID, которого нет в базе.
+     */
+    private static final String TOMBSTONE = "";
+
+    /**
+     * Значение-метка сброшенной записи: считается промахом и не даёт записать результат загрузки.
+     */
+    static final String EVICTED = "evicted";
+
+    private static final int EVICT_BATCH_SIZE = 1000;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final DictionarySnapshotRepository dictionarySnapshotRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${contractor.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${contractor.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${contractor.cache.negative-ttl:30s}")
+    private Duration negativeTtl;
+
+    @Value("${contractor.cache.eviction-marker-ttl:5s}")
+    private Duration evictionMarkerTtl;
+
+    private final ConcurrentMap<String, CompletableFuture<Optional<Contractor>>> inFlight = new ConcurrentHashMap<>();
+
+    private Counter hits;
+    private Counter negativeHits;
+    private Counter misses;
+    private Counter coalesced;
+
+    @PostConstruct
+    void initMetrics() {
+        hits = meterRegistry.counter("contractor.cache.gets", "result", "hit");
+        negativeHits = meterRegistry.counter("contractor.cache.gets", "result", "negative");
+        misses = meterRegistry.counter("contractor.cache.gets", "result", "miss");
+        coalesced = meterRegistry.counter("contractor.cache.coalesced");
+    }
+
+    /**
+     * Возвращает контрагента из кеша, а при промахе загружает его и кеширует результат,
+     * в том числе отсутствие записи.
+     *
+     * @param id     ID контрагента.
+     * @param loader Загрузка контрагента из базы.
+     * @return {@link Optional} с контрагентом или пустой, если его нет.
+     */
+    public Optional<Contractor> get(String id, Function<String, Optional<Contractor>> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        String cached = read(id);
+        if (cached != null && !EVICTED.equals(cached)) {
+            if (TOMBSTONE.equals(cached)) {
+                negativeHits.increment();
+                return Optional.empty();
+            }
+            Contractor contractor = deserialize(cached);
+            if (contractor != null) {
+                hits.increment();
+                return Optional.of(dictionarySnapshotRepository.current().enrich(contractor));
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Optional<Contractor>> load = new CompletableFuture<>();
+        CompletableFuture<Optional<Contractor>> existing = inFlight.putIfAbsent(id, load);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        try {
+            Optional<Contractor> loaded = loader.apply(id);
+            fill(id, loaded.orElse(null));
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(id, load);
+        }
+    }
+
+    /**
+     * Сбрасывает запись сохранённого контрагента после фиксации текущей транзакции.
+     *
+     * @param contractor Сохранённый контрагент.
+     */
+    public void onSaved(Contractor contractor) {
+        String id = contractor.getId();
+        afterCommit(() -> evict(List.of(id)));
+    }
+
+    /**
+     * Сбрасывает запись контрагента после фиксации текущей транзакции.
+     *
+     * @param id ID изменённого контрагента.
+     */
+    public void onDeleted(String id) {
+        afterCommit(() -> evict(List.of(id)));
+    }
+
+    /**
+     * Сбрасывает записи набора контрагентов после фиксации текущей транзакции.
+     *
+     * @param ids ID изменённых контрагентов.
+     */
+    public void onBulkChange(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<String> copy = List.copyOf(ids);
+        afterCommit(() -> evict(copy));
+    }
+
+    /**
+     * Сбрасывает после фиксации текущей транзакции записи контрагентов, набор которых слишком велик,
+     * чтобы держать его в памяти (например, при импорте через COPY): источник читается только после
+     * фиксации и передаёт ID порциями, каждая сбрасывается сразу.
+     *
+     * @param changedIds Источник, передающий в обработчик ID изменённых контрагентов порциями.
+     */
+    public void onBulkChange(Consumer<Consumer<List<String>>> changedIds) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            try {
+                changedIds.accept(this::evict);
+            } catch (RuntimeException e) {
+                log.warn("Failed to read bulk-changed contractors for cache eviction: {}", e.getMessage());
+            }
+        });
+    }
+
+    private String read(String id) {
+        try {
+            return redisTemplate.opsForValue().get(KEY_PREFIX + id);
+        } catch (RuntimeException e) {
+            log.warn("Failed to read contractor {} from cache: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    private void fill(String id, Contractor contractor) {
+        try {
+            if (contractor == null) {
+                redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + id, TOMBSTONE, negativeTtl);
+            } else {
+                redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + id, objectMapper.writeValueAsString(contractor), ttl);
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("Failed to write contractor {} to cache: {}", id, e.getMessage());
+        }
+    }
+
+    private void evict(List<String> ids) {
+        if (!enabled) {
+            return;
+        }
+        byte[] marker = EVICTED.getBytes(StandardCharsets.UTF_8);
+        Expiration expiration = Expiration.from(evictionMarkerTtl);
+        try {
+            for (int from = 0; from < ids.size(); from += EVICT_BATCH_SIZE) {
+                List<String> batch = ids.subList(from, Math.min(from + EVICT_BATCH_SIZE, ids.size()));
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (String id : batch) {
+                        connection.stringCommands().set((KEY_PREFIX + id).getBytes(StandardCharsets.UTF_8), marker,
+                                expiration, RedisStringCommands.SetOption.upsert());
+                    }
+                    return null;
+                });
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to evict {} contractors from cache: {}", ids.size(), e.getMessage());
+        }
+    }
+
+    private Contractor deserialize(String json) {
+        try {
+            return objectMapper.readValue(json, Contractor.class);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable cached contractor: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static Optional<Contractor> await(CompletableFuture<Optional<Contractor>> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+}
@@ -3,41 +3,113 @@ package com.example.contractor_service.service.outbox;
 import com.example.contractor_service.model.Contractor;
 import com.example.contractor_service.model.outbox.MessageStatus;
 import com.example.contractor_service.model.outbox.OutboxMessage;
-import com.example.contractor_service.repository.OutboxRepository;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.contractor_service.repository.OutboxJdbcRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.UUID;
 
+/**
+ * Сервис записи изменений контрагентов в outbox.
+ * <p>
+ * В режиме уплотнения ({@code outbox.compaction.enabled}) у каждого контрагента остаётся не больше
+ * одного ожидающего сообщения с его последним состоянием: потребителям важно только актуальное
+ * состояние, а промежуточные снимки при частых изменениях не отправляются. Сообщение, уже захваченное
+ * диспетчером, не заменяется, а новое сообщение получает больший {@code seq} (см. {@link OutboxJdbcRepository}),
+ * поэтому более старый снимок никогда не уходит после более нового.
+ * Количество сэкономленных сообщений публикуется метрикой {@code outbox.compacted}.
+ * </p>
+ */
 @Service
 @RequiredArgsConstructor
 public class OutboxMessageService {
 
-    private final OutboxRepository outboxRepository;
-    private final ObjectMapper objectMapper;
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.compaction.enabled:false}")
+    private boolean compaction;
 
     @Transactional
     public void saveContractor(Contractor contractor) {
-        OutboxMessage message = OutboxMessage.builder()
-                .messageId(UUID.randomUUID())
-                .payload(writeAsString(contractor))
-                .status(MessageStatus.PENDING)
-                .sentAt(LocalDateTime.now())
-                .build();
-
-        outboxRepository.save(message);
+        String payload = writeAsString(contractor);
+        if (compaction) {
+            if (outboxJdbcRepository.coalesce(UUID.randomUUID(), contractor.getId(), payload)) {
+                compacted(1);
+            }
+        } else {
+            outboxJdbcRepository.insert(UUID.randomUUID(), contractor.getId(), payload, MessageStatus.PENDING);
+        }
     }
 
-    private String writeAsString(Contractor contractor) {
-        try {
-            return objectMapper.writeValueAsString(contractor);
-        } catch (JsonProcessingException e) {
-            throw new RuntimeException("Failed to serialize contractor", e);
+    @Transactional
+    public void saveContractors(List<Contractor> contractors) {
+        if (contractors.isEmpty()) {
+            return;
+        }
+        List<OutboxMessage> messages = contractors.stream()
+                .map(contractor -> OutboxMessage.builder()
+                        .messageId(UUID.randomUUID())
+                        .contractorId(contractor.getId())
+                        .payload(writeAsString(contractor))
+                        .status(MessageStatus.PENDING)
+                        .build())
+                .toList();
+        if (compaction) {
+            compacted(outboxJdbcRepository.coalesceBatch(messages));
+        } else {
+            outboxJdbcRepository.insertBatchAndNotify(messages);
         }
     }
 
+    /**
+     * Вызывается после записи сообщений в outbox в обход этого сервиса (например, при импорте CSV):
+     * в режиме уплотнения удаляет устаревшие ожидающие сообщения и будит диспетчер после фиксации транзакции.
+     */
+    @Transactional
+    public void onExternalInsert() {
+        if (compaction) {
+            compacted(outboxJdbcRepository.compactPending());
+        }
+        outboxJdbcRepository.notifyPending();
+    }
+
+    /**
+     * Возвращает сообщения из статуса DEAD_LETTER в очередь со сброшенным счётчиком попыток
+     * и будит диспетчер после фиксации транзакции.
+     *
+     * @param messageIds ID сообщений; {@code null} или пустой список означает все сообщения в DEAD_LETTER.
+     * @return Количество возвращённых в очередь сообщений.
+     */
+    @Transactional
+    public int replayDeadLetters(List<UUID> messageIds) {
+        int replayed = outboxJdbcRepository.replayDeadLetters(messageIds);
+        if (replayed > 0) {
+            outboxJdbcRepository.notifyPending();
+        }
+        return replayed;
+    }
+
+    private void compacted(long count) {
+        if (count > 0) {
+            meterRegistry.counter("outbox.compacted").increment(count);
+        }
+    }
+
+    /**
+     * Сериализует контрагента тем же конвертером, которым отправляются сообщения в RabbitMQ,
+     * чтобы payload совпадал с телом сообщения.
+     */
+    private String writeAsString(Contractor contractor) {
+        return new String(messageConverter.toMessage(contractor, new MessageProperties()).getBody(), StandardCharsets.UTF_8);
+    }
+
 }
@@ -0,0 +1,106 @@
+package com.example.contractor_service.service.outbox;
+
+import com.example.contractor_service.repository.OutboxJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Очистка таблицы outbox от отправленных сообщений.
+ * <p>
+ * Сообщения в статусе SENT старше {@code outbox.retention.max-age} удаляются порциями
+ * по {@code outbox.retention.batch-size} строк, каждая в своей транзакции, чтобы не держать
+ * долгих блокировок и не раздувать WAL одной большой транзакцией. Сообщения в статусах
+ * PENDING, DEAD_LETTER и SUPERSEDED не удаляются.
+ * </p>
+ * <p>
+ * Метрики: {@code outbox.retention.purged} — количество удалённых строк,
+ * {@code outbox.retention.duration} — длительность запусков очистки,
+ * {@code outbox.table.size} — размер таблицы outbox в байтах.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OutboxRetentionService {
+
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.retention.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.retention.max-age:7d}")
+    private Duration maxAge;
+
+    @Value("${outbox.retention.batch-size:5000}")
+    private int batchSize;
+
+    private Counter purged;
+    private Timer purgeDuration;
+
+    @PostConstruct
+    void initMetrics() {
+        purged = Counter.builder("outbox.retention.purged")
+                .description("Sent outbox messages deleted by the retention job")
+                .register(meterRegistry);
+        purgeDuration = Timer.builder("outbox.retention.duration")
+                .description("Duration of outbox retention runs")
+                .register(meterRegistry);
+        Gauge.builder("outbox.table.size", this, OutboxRetentionService::tableSize)
+                .description("Total size of the outbox_messages table including indexes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.retention.delay:600000}")
+    public void scheduledPurge() {
+        if (enabled) {
+            purge();
+        }
+    }
+
+    /**
+     * Удаляет отправленные сообщения старше {@code outbox.retention.max-age}.
+     *
+     * @return Количество удалённых сообщений.
+     */
+    public long purge() {
+        LocalDateTime sentBefore = LocalDateTime.now().minus(maxAge);
+        long started = System.nanoTime();
+        long total = 0;
+        int deleted;
+        do {
+            deleted = outboxJdbcRepository.deleteSentBefore(sentBefore, batchSize);
+            total += deleted;
+            purged.increment(deleted);
+        } while (deleted == batchSize);
+        purgeDuration.record(Duration.ofNanos(System.nanoTime() - started));
+
+        if (total > 0) {
+            log.info("Outbox retention removed {} messages sent before {}", total, sentBefore);
+        }
+        return total;
+    }
+
+    private double tableSize() {
+        try {
+            return outboxJdbcRepository.tableSize();
+        } catch (DataAccessException e) {
+            log.warn("Failed to read outbox table size", e);
+            return Double.NaN;
+        }
+    }
+
+}
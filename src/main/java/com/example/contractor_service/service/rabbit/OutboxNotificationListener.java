@@ -0,0 +1,109 @@
+package com.example.contractor_service.service.rabbit;
+
+import com.example.contractor_service.repository.OutboxJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Слушатель уведомлений PostgreSQL о новых сообщениях outbox.
+ * <p>
+ * Держит отдельное от пула соединение с подпиской {@code LISTEN} на канал
+ * {@link OutboxJdbcRepository#NOTIFY_CHANNEL} и запускает диспетчер сразу после фиксации
+ * транзакции, записавшей сообщение. Уведомления, пришедшие во время отправки, схлопываются
+ * в один следующий запуск. Опрос по расписанию остаётся страховкой на случай потери соединения.
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "outbox.listen.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxNotificationListener implements SmartLifecycle {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final SendMessageRabbitService sendMessageRabbitService;
+
+    @Value("${outbox.listen.poll-timeout:10000}")
+    private int pollTimeout;
+
+    @Value("${outbox.listen.reconnect-delay:5000}")
+    private long reconnectDelay;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    @Override
+    public void start() {
+        running = true;
+        worker = Thread.ofPlatform()
+                .daemon()
+                .name("outbox-listener")
+                .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + OutboxJdbcRepository.NOTIFY_CHANNEL);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                log.info("Listening for outbox notifications on channel {}", OutboxJdbcRepository.NOTIFY_CHANNEL);
+
+                // Сообщения, записанные, пока подписки не было, отправляются сразу.
+                dispatch();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeout);
+                    if (notifications != null && notifications.length > 0) {
+                        dispatch();
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Outbox listener connection failed, reconnecting in {} ms", reconnectDelay, e);
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch() {
+        try {
+            sendMessageRabbitService.sendUpdatedContractor();
+        } catch (RuntimeException e) {
+            log.error("Outbox dispatch triggered by notification failed", e);
+        }
+    }
+
+}
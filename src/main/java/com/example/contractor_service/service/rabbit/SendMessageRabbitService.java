@@ -3,19 +3,83 @@ package com.example.contractor_service.service.rabbit;
 import com.example.contractor_service.model.Contractor;
 import com.example.contractor_service.model.outbox.MessageStatus;
 import com.example.contractor_service.model.outbox.OutboxMessage;
-import com.example.contractor_service.repository.OutboxRepository;
+import com.example.contractor_service.repository.OutboxJdbcRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Диспетчер outbox: отправляет ожидающие сообщения в RabbitMQ.
+ * <p>
+ * Сообщения захватываются порциями через {@code FOR UPDATE SKIP LOCKED} и сразу закрепляются
+ * за диспетчером арендой на {@code outbox.dispatcher.lease}, поэтому несколько экземпляров сервиса
+ * делят очередь без повторных отправок. Отправка в брокер и ожидание подтверждений идут вне транзакции
+ * и не держат блокировок; результаты порции записываются отдельной короткой транзакцией. Пока есть
+ * что отправлять, следующая порция захватывается сразу, не дожидаясь очередного запуска по расписанию.
+ * Payload отправляется в брокер как есть, без повторной сериализации.
+ * </p>
+ * <p>
+ * Захватываются только самые старые ожидающие сообщения каждого контрагента: следующее сообщение
+ * контрагента не захватывается, пока предыдущее не отправлено, даже другим экземпляром сервиса.
+ * Порция делится по хешу ID контрагента на {@code outbox.dispatcher.lanes} полос, которые
+ * отправляются параллельно в виртуальных потоках, поэтому разные контрагенты публикуются одновременно,
+ * а порядок сообщений одного контрагента сохраняется. С {@code outbox.dispatcher.routing.partitioned}
+ * сообщения полосы {@code n} отправляются с ключом маршрутизации {@code contractor.update.n},
+ * чтобы потребители тоже могли масштабироваться по партициям; число полос при этом должно
+ * совпадать на всех экземплярах и у потребителей.
+ * </p>
+ * <p>
+ * Обычно диспетчер запускается {@link OutboxNotificationListener} по уведомлению PostgreSQL;
+ * редкий опрос по расписанию подбирает сообщения, уведомления о которых были потеряны.
+ * Время от записи сообщения в outbox до его отправки публикуется метрикой {@code outbox.publish.latency}.
+ * </p>
+ * <p>
+ * В режиме {@code outbox.dispatcher.publisher-confirms} сообщения отправляются без ожидания
+ * подтверждения каждого: до {@code outbox.dispatcher.confirm-window} сообщений могут ожидать
+ * подтверждения брокера одновременно. Статус SENT выставляется одним запросом только
+ * подтверждённым сообщениям.
+ * </p>
+ * <p>
+ * Неудачная попытка (ошибка отправки, nack или отсутствие подтверждения) не выводит сообщение
+ * из очереди: увеличивается счётчик попыток, а следующая попытка откладывается на случайное время
+ * от нуля до {@code min(backoff.max, backoff.initial * 2^attempts)} (экспоненциальная задержка
+ * с полным джиттером). Поэтому после сбоя брокера накопленные сообщения уходят постепенно,
+ * а не одной волной со всех экземпляров. После {@code outbox.dispatcher.max-attempts} попыток
+ * сообщение переводится в статус DEAD_LETTER и возвращается в очередь только вручную.
+ * </p>
+ */
 @Service
 @Slf4j
 @RequiredArgsConstructor
@@ -23,39 +87,224 @@ public class SendMessageRabbitService {
 
     @Autowired
     private RabbitTemplate rabbitTemplate;
-    private final OutboxRepository outboxRepository;
+    private final OutboxJdbcRepository outboxJdbcRepository;
     private final ObjectMapper objectMapper;
+    private final Jackson2JsonMessageConverter messageConverter;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
 
-    @Scheduled(fixedDelayString = "${schedule.delay:5000}")
-    @Transactional
+    @Value("${outbox.dispatcher.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.dispatcher.publisher-confirms:true}")
+    private boolean publisherConfirms;
+
+    @Value("${outbox.dispatcher.confirm-window:256}")
+    private int confirmWindow;
+
+    @Value("${outbox.dispatcher.confirm-timeout:10000}")
+    private long confirmTimeout;
+
+    @Value("${outbox.dispatcher.lanes:4}")
+    private int lanes;
+
+    @Value("${outbox.dispatcher.routing.partitioned:false}")
+    private boolean partitionedRouting;
+
+    @Value("${outbox.dispatcher.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${outbox.dispatcher.backoff.initial:1s}")
+    private Duration backoffInitial;
+
+    @Value("${outbox.dispatcher.backoff.max:10m}")
+    private Duration backoffMax;
+
+    @Value("${outbox.dispatcher.lease:1m}")
+    private Duration lease;
+
+    private Timer publishLatency;
+    private Counter deadLetters;
+
+    @PostConstruct
+    void initMetrics() {
+        publishLatency = Timer.builder("outbox.publish.latency")
+                .description("Time from writing an outbox message to publishing it to RabbitMQ")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        deadLetters = Counter.builder("outbox.dead.letters")
+                .description("Outbox messages moved to DEAD_LETTER after exhausting send attempts")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${schedule.delay:60000}")
     public void sendUpdatedContractor() {
-        List<OutboxMessage> messages = outboxRepository
-                .findTop10ByStatusOrderBySentAtAsc(MessageStatus.PENDING);
+        boolean backlog;
+        do {
+            backlog = dispatchBatch();
+        } while (backlog);
+    }
 
+    /**
+     * Захватывает и отправляет одну порцию сообщений. Захват фиксируется до отправки,
+     * поэтому блокировки строк не удерживаются на время ожидания брокера.
+     *
+     * @return {@code true}, если порция не пуста и отправлена без отказов брокера,
+     * то есть следующую порцию стоит захватить сразу.
+     */
+    private boolean dispatchBatch() {
+        List<OutboxMessage> messages = outboxJdbcRepository.claimPending(batchSize, lease);
         if (messages.isEmpty()) {
-            return;
+            return false;
+        }
+
+        Map<Integer, List<OutboxMessage>> byLane = new TreeMap<>();
+        for (OutboxMessage message : messages) {
+            byLane.computeIfAbsent(lane(message.getContractorId()), key -> new ArrayList<>()).add(message);
+        }
+        List<LaneResult> results = new ArrayList<>(byLane.size());
+        if (byLane.size() == 1) {
+            byLane.forEach((lane, laneMessages) -> results.add(sendLane(lane, laneMessages)));
+        } else {
+            // Полосы только отправляют сообщения; в базу пишет вызывающий поток после их завершения.
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<LaneResult>> futures = new ArrayList<>(byLane.size());
+                byLane.forEach((lane, laneMessages) -> futures.add(executor.submit(() -> sendLane(lane, laneMessages))));
+                for (Future<LaneResult> future : futures) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while dispatching outbox batch", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Outbox lane failed", e.getCause());
+            }
+        }
+
+        List<UUID> sent = new ArrayList<>(messages.size());
+        Map<String, List<UUID>> failures = new LinkedHashMap<>();
+        for (LaneResult result : results) {
+            sent.addAll(result.sent());
+            result.failures().forEach((error, ids) -> failures.computeIfAbsent(error, key -> new ArrayList<>()).addAll(ids));
         }
 
+        Integer deadLettered = transactionTemplate.execute(status -> {
+            outboxJdbcRepository.updateStatus(sent, MessageStatus.SENT);
+            int moved = 0;
+            for (Map.Entry<String, List<UUID>> failure : failures.entrySet()) {
+                moved += outboxJdbcRepository.recordFailure(failure.getValue(), failure.getKey(),
+                        maxAttempts, backoffInitial, backoffMax);
+            }
+            return moved;
+        });
+        int failed = failures.values().stream().mapToInt(List::size).sum();
+        if (deadLettered != null && deadLettered > 0) {
+            deadLetters.increment(deadLettered);
+            log.warn("{} outbox messages moved to DEAD_LETTER after {} attempts", deadLettered, maxAttempts);
+        }
+        log.info("Outbox batch dispatched to the <<deals_contractor_queue>> queue: sent={}, failed={}, lanes={}",
+                sent.size(), failed, byLane.size());
+        return failures.isEmpty();
+    }
+
+    /**
+     * Отправляет сообщения одной полосы в порядке захвата.
+     *
+     * @param lane     Номер полосы.
+     * @param messages Сообщения полосы, отсортированные по времени записи.
+     * @return Отправленные сообщения и ошибки, сгруппированные по тексту.
+     */
+    private LaneResult sendLane(int lane, List<OutboxMessage> messages) {
+        String exchange = rabbitTemplate.getExchange();
+        String routingKey = partitionedRouting ? rabbitTemplate.getRoutingKey() + "." + lane : rabbitTemplate.getRoutingKey();
+        List<UUID> sent = new ArrayList<>(messages.size());
+        Map<String, List<UUID>> failures = new LinkedHashMap<>();
+        Deque<InFlight> inFlight = new ArrayDeque<>();
         for (OutboxMessage outboxMessage : messages) {
             try {
-                Contractor updated = objectMapper.readValue(outboxMessage.getPayload(), Contractor.class);
-                rabbitTemplate.convertAndSend(updated, message ->  {
-                    message.getMessageProperties().setMessageId(outboxMessage.getMessageId().toString());
-                    return message;
-                });
+                Message message = toMessage(outboxMessage);
+                if (publisherConfirms) {
+                    if (inFlight.size() >= confirmWindow) {
+                        awaitConfirm(inFlight.poll(), sent, failures);
+                    }
+                    CorrelationData correlation = new CorrelationData(outboxMessage.getMessageId().toString());
+                    rabbitTemplate.send(exchange, routingKey, message, correlation);
+                    inFlight.add(new InFlight(outboxMessage, correlation, System.nanoTime()));
+                } else {
+                    rabbitTemplate.send(exchange, routingKey, message);
+                    sent.add(outboxMessage.getMessageId());
+                    publishLatency.record(Duration.between(outboxMessage.getSentAt(), LocalDateTime.now()));
+                }
+            } catch (Exception e) {
+                log.error("Failed to send outbox message {} to Rabbit", outboxMessage.getMessageId(), e);
+                fail(failures, outboxMessage.getMessageId(), e.toString());
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            awaitConfirm(inFlight.poll(), sent, failures);
+        }
+        return new LaneResult(sent, failures);
+    }
 
-                outboxMessage.setStatus(MessageStatus.SENT);
-                outboxMessage.setSentAt(LocalDateTime.now());
-                outboxRepository.save(outboxMessage);
+    /**
+     * Номер полосы контрагента. {@link String#hashCode()} определён спецификацией,
+     * поэтому номер совпадает на всех экземплярах сервиса.
+     */
+    private int lane(String contractorId) {
+        return contractorId != null ? Math.floorMod(contractorId.hashCode(), lanes) : 0;
+    }
 
-                log.info("Contractor sent to the <<deals_contractor_queue>> queue, messageId={}", outboxMessage.getMessageId());
-            } catch (Exception e) {
+    private static void fail(Map<String, List<UUID>> failures, UUID messageId, String error) {
+        failures.computeIfAbsent(error, key -> new ArrayList<>()).add(messageId);
+    }
 
-                log.error("Failed to send outbox message {} to Rabbit", outboxMessage.getMessageId(), e);
-                outboxMessage.setStatus(MessageStatus.FAILED);
-                outboxRepository.save(outboxMessage);
+    /**
+     * Собирает AMQP-сообщение из сохранённого payload без десериализации: тело передаётся как есть,
+     * а заголовки ({@code content_type}, {@code content_encoding}, {@code __TypeId__}) выставляются
+     * так же, как их выставляет {@link Jackson2JsonMessageConverter} при отправке {@link Contractor}.
+     */
+    private Message toMessage(OutboxMessage outboxMessage) {
+        byte[] body = outboxMessage.getPayload().getBytes(StandardCharsets.UTF_8);
+        MessageProperties properties = new MessageProperties();
+        properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+        properties.setContentEncoding(StandardCharsets.UTF_8.name());
+        properties.setContentLength(body.length);
+        properties.setMessageId(outboxMessage.getMessageId().toString());
+        messageConverter.getJavaTypeMapper().fromJavaType(objectMapper.constructType(Contractor.class), properties);
+        return new Message(body, properties);
+    }
+
+    /**
+     * Ожидает подтверждения брокера для отправленного сообщения. Подтверждённое сообщение попадает
+     * в {@code sent}; отклонённое или не подтверждённое за {@code outbox.dispatcher.confirm-timeout}
+     * считается неудачной попыткой и будет отправлено повторно после паузы.
+     */
+    private void awaitConfirm(InFlight message, List<UUID> sent, Map<String, List<UUID>> failures) {
+        UUID messageId = message.outboxMessage().getMessageId();
+        long remaining = confirmTimeout - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - message.sentNanos());
+        try {
+            CorrelationData.Confirm confirm = message.correlation().getFuture()
+                    .get(Math.max(remaining, 0), TimeUnit.MILLISECONDS);
+            if (confirm.isAck()) {
+                sent.add(messageId);
+                publishLatency.record(Duration.between(message.outboxMessage().getSentAt(), LocalDateTime.now()));
+            } else {
+                log.warn("Outbox message {} was nacked by Rabbit: {}", messageId, confirm.getReason());
+                fail(failures, messageId, "Nacked by broker: " + confirm.getReason());
             }
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("No publisher confirm for outbox message {}", messageId, e);
+            fail(failures, messageId, "No publisher confirm: " + e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            fail(failures, messageId, "Interrupted while waiting for publisher confirm");
         }
     }
 
+    private record InFlight(OutboxMessage outboxMessage, CorrelationData correlation, long sentNanos) {
+    }
+
+    private record LaneResult(List<UUID> sent, Map<String, List<UUID>> failures) {
+    }
+
 }
@@ -0,0 +1,231 @@
+package com.example.contractor_service.service.search;
+
+import com.example.contractor_service.model.Contractor;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Битовый индекс контрагентов по стране, отрасли и организационно-правовой форме.
+ * <p>
+ * Каждому контрагенту выдаётся постоянный порядковый номер (ordinal). Для каждого значения
+ * справочника хранится сжатый {@link RoaringBitmap} с ordinal'ами контрагентов, а отдельный
+ * битмап {@code active} содержит всех активных контрагентов. Конъюнкция фильтров вычисляется
+ * пересечением битмапов, а количество — их кардинальностью, без обращения к базе.
+ * </p>
+ * <p>
+ * При построении ordinal'ы выдаются в порядке возрастания ID, поэтому обход результата сразу
+ * даёт отсортированные ID. Новый контрагент с ID меньше последнего нарушает этот порядок,
+ * и до следующего перестроения результат сортируется явно.
+ * </p>
+ */
+final class ContractorFilterIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final List<Contractor> values = new ArrayList<>();
+
+    private final RoaringBitmap active = new RoaringBitmap();
+    private final Map<String, RoaringBitmap> byCountry = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byIndustry = new HashMap<>();
+    private final Map<Integer, RoaringBitmap> byOrgForm = new HashMap<>();
+
+    private boolean ordered = true;
+
+    /**
+     * Строит индекс по списку активных контрагентов.
+     *
+     * @param contractors Контрагенты в произвольном порядке.
+     * @return Заполненный индекс.
+     */
+    static ContractorFilterIndex build(Collection<Contractor> contractors) {
+        ContractorFilterIndex index = new ContractorFilterIndex();
+        contractors.stream()
+                .sorted(Comparator.comparing(Contractor::getId))
+                .forEach(index::put);
+        index.active.runOptimize();
+        index.byCountry.values().forEach(RoaringBitmap::runOptimize);
+        index.byIndustry.values().forEach(RoaringBitmap::runOptimize);
+        index.byOrgForm.values().forEach(RoaringBitmap::runOptimize);
+        return index;
+    }
+
+    /**
+     * Добавляет контрагента в индекс или переносит его в битмапы новых значений справочников.
+     *
+     * @param contractor Активный контрагент.
+     */
+    void put(Contractor contractor) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(contractor.getId());
+            if (ordinal == null) {
+                ordinal = ids.size();
+                if (!ids.isEmpty() && contractor.getId().compareTo(ids.get(ids.size() - 1)) < 0) {
+                    ordered = false;
+                }
+                ids.add(contractor.getId());
+                values.add(null);
+                ordinals.put(contractor.getId(), ordinal);
+            } else {
+                unlink(ordinal);
+            }
+            values.set(ordinal, contractor);
+            active.add(ordinal);
+            link(byCountry, contractor.getCountryId(), ordinal);
+            link(byIndustry, contractor.getIndustryId(), ordinal);
+            link(byOrgForm, contractor.getOrgFormId(), ordinal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Исключает контрагента из всех битмапов. Ordinal сохраняется за ID для повторной активации.
+     *
+     * @param id ID контрагента.
+     */
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null && values.get(ordinal) != null) {
+                unlink(ordinal);
+                values.set(ordinal, null);
+                active.remove(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Вычисляет множество активных контрагентов, удовлетворяющих всем условиям.
+     * Пустой набор значений условия означает, что подходящих контрагентов нет;
+     * {@code null} — что условие не задано.
+     *
+     * @param countryIds Допустимые ID стран или {@code null}.
+     * @param industryId ID отрасли или {@code null}.
+     * @param orgFormIds Допустимые ID орг. форм или {@code null}.
+     * @return Битмап ordinal'ов (копия, которую можно изменять).
+     */
+    RoaringBitmap match(Collection<String> countryIds, Integer industryId, Collection<Integer> orgFormIds) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result = active.clone();
+            if (countryIds != null) {
+                result.and(union(byCountry, countryIds));
+            }
+            if (industryId != null) {
+                result.and(byIndustry.getOrDefault(industryId, new RoaringBitmap()));
+            }
+            if (orgFormIds != null) {
+                result.and(union(byOrgForm, orgFormIds));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Переводит результат {@link #match} в отсортированный список ID.
+     *
+     * @param bitmap Битмап ordinal'ов.
+     * @return ID контрагентов в порядке возрастания.
+     */
+    List<String> ids(RoaringBitmap bitmap) {
+        lock.readLock().lock();
+        try {
+            List<String> result = new ArrayList<>(bitmap.getCardinality());
+            bitmap.forEach((int ordinal) -> result.add(ids.get(ordinal)));
+            if (!ordered) {
+                result.sort(Comparator.naturalOrder());
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Проверяет, входит ли контрагент в битмап ordinal'ов.
+     *
+     * @param bitmap Битмап ordinal'ов.
+     * @param id     ID контрагента.
+     * @return {@code true}, если ordinal контрагента присутствует в битмапе.
+     */
+    boolean contains(RoaringBitmap bitmap, String id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(id);
+            return ordinal != null && bitmap.contains(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает объём памяти каждого битмапа в байтах.
+     *
+     * @return Размеры битмапов по именам вида {@code country:RUS}, {@code industry:5}, {@code org_form:3}.
+     */
+    Map<String, Long> memoryUsage() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> usage = new LinkedHashMap<>();
+            usage.put("active", active.getLongSizeInBytes());
+            byCountry.forEach((key, bitmap) -> usage.put("country:" + key, bitmap.getLongSizeInBytes()));
+            byIndustry.forEach((key, bitmap) -> usage.put("industry:" + key, bitmap.getLongSizeInBytes()));
+            byOrgForm.forEach((key, bitmap) -> usage.put("org_form:" + key, bitmap.getLongSizeInBytes()));
+            return usage;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unlink(int ordinal) {
+        Contractor previous = values.get(ordinal);
+        if (previous == null) {
+            return;
+        }
+        unlink(byCountry, previous.getCountryId(), ordinal);
+        unlink(byIndustry, previous.getIndustryId(), ordinal);
+        unlink(byOrgForm, previous.getOrgFormId(), ordinal);
+    }
+
+    private static <K> void link(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        if (key != null) {
+            bitmaps.computeIfAbsent(key, ignored -> new RoaringBitmap()).add(ordinal);
+        }
+    }
+
+    private static <K> void unlink(Map<K, RoaringBitmap> bitmaps, K key, int ordinal) {
+        RoaringBitmap bitmap = key != null ? bitmaps.get(key) : null;
+        if (bitmap == null) {
+            return;
+        }
+        bitmap.remove(ordinal);
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(key);
+        }
+    }
+
+    private static <K> RoaringBitmap union(Map<K, RoaringBitmap> bitmaps, Collection<K> keys) {
+        return RoaringBitmap.or(keys.stream()
+                .map(bitmaps::get)
+                .filter(Objects::nonNull)
+                .iterator());
+    }
+
+}
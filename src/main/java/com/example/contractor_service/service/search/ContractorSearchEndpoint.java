@@ -0,0 +1,35 @@
+package com.example.contractor_service.service.search;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Actuator-эндпоинт {@code /actuator/contractorsearch} с объёмом памяти битмапов
+ * встроенного поискового движка {@link InMemoryContractorSearch}. Как и все actuator-эндпоинты,
+ * кроме {@code health}, доступен только с ролью SUPERUSER (см. {@code SecurityConfig}).
+ */
+@Component
+@Endpoint(id = "contractorsearch")
+@RequiredArgsConstructor
+public class ContractorSearchEndpoint {
+
+    private final InMemoryContractorSearch inMemorySearch;
+
+    /**
+     * @return Размер каждого битмапа в байтах и их суммарный размер.
+     */
+    @ReadOperation
+    public Map<String, Object> bitmaps() {
+        Map<String, Long> usage = inMemorySearch.bitmapMemoryUsage();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("totalBytes", usage.values().stream().mapToLong(Long::longValue).sum());
+        result.put("bitmaps", usage);
+        return result;
+    }
+
+}
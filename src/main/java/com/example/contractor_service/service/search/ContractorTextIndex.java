@@ -0,0 +1,228 @@
+package com.example.contractor_service.service.search;
+
+import com.example.contractor_service.model.Contractor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс по триграммам полей {@code name}, {@code name_full}, {@code inn} и {@code ogrn}.
+ * <p>
+ * Каждой версии контрагента выдаётся порядковый номер (ordinal), а списки вхождений триграмм
+ * хранят ordinal'ы в порядке возрастания. Изменение контрагента не переписывает старые списки:
+ * предыдущий ordinal помечается удалённым, а новая версия получает следующий номер,
+ * поэтому списки остаются отсортированными и пересекаются слиянием.
+ * Когда удалённых версий становится больше живых, индекс перестраивается из памяти.
+ * </p>
+ * <p>
+ * Триграммы служат только фильтром кандидатов: каждый кандидат перепроверяется
+ * вхождением подстроки, что повторяет семантику {@code ILIKE '%value%'}.
+ * </p>
+ */
+final class ContractorTextIndex {
+
+    static final int GRAM_LENGTH = 3;
+
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Long, IntList> postings = new HashMap<>();
+    private List<String> ids = new ArrayList<>();
+    private List<String> texts = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private int deadCount;
+
+    /**
+     * Добавляет контрагента в индекс или заменяет его предыдущую версию.
+     *
+     * @param contractor Контрагент с заполненными текстовыми полями.
+     */
+    void put(Contractor contractor) {
+        lock.writeLock().lock();
+        try {
+            markDead(contractor.getId());
+            append(contractor.getId(), normalize(contractor));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет контрагента из индекса (например, после логического удаления).
+     *
+     * @param id ID контрагента.
+     */
+    void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            markDead(id);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает ID живых контрагентов, у которых хотя бы одно из полей содержит подстроку.
+     *
+     * @param query Подстрока длиной не меньше {@link #GRAM_LENGTH}.
+     * @return ID подходящих контрагентов в порядке возрастания.
+     */
+    List<String> search(String query) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= needle.length(); i++) {
+            grams.add(gram(needle, i));
+        }
+
+        lock.readLock().lock();
+        try {
+            List<IntList> lists = new ArrayList<>(grams.size());
+            for (Long gram : grams) {
+                IntList list = postings.get(gram);
+                if (list == null) {
+                    return List.of();
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(IntList::size));
+
+            int[] candidates = Arrays.copyOf(lists.get(0).data, lists.get(0).size);
+            int count = candidates.length;
+            for (int i = 1; i < lists.size() && count > 0; i++) {
+                count = intersect(candidates, count, lists.get(i));
+            }
+
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                String text = texts.get(candidates[i]);
+                if (text != null && text.contains(needle)) {
+                    result.add(ids.get(candidates[i]));
+                }
+            }
+            result.sort(Comparator.naturalOrder());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Количество живых контрагентов в индексе.
+     */
+    int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void markDead(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) {
+            texts.set(ordinal, null);
+            deadCount++;
+        }
+    }
+
+    private void append(String id, String text) {
+        int ordinal = ids.size();
+        ids.add(id);
+        texts.add(text);
+        ordinals.put(id, ordinal);
+
+        Set<Long> grams = new LinkedHashSet<>();
+        int fieldStart = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            if (i == text.length() || text.charAt(i) == FIELD_SEPARATOR) {
+                for (int j = fieldStart; j + GRAM_LENGTH <= i; j++) {
+                    grams.add(gram(text, j));
+                }
+                fieldStart = i + 1;
+            }
+        }
+        for (Long gram : grams) {
+            postings.computeIfAbsent(gram, key -> new IntList()).add(ordinal);
+        }
+    }
+
+    private void compactIfNeeded() {
+        if (deadCount <= ordinals.size() || deadCount < 1024) {
+            return;
+        }
+        List<String> oldIds = ids;
+        List<String> oldTexts = texts;
+        postings = new HashMap<>();
+        ids = new ArrayList<>(ordinals.size());
+        texts = new ArrayList<>(ordinals.size());
+        ordinals.clear();
+        deadCount = 0;
+        for (int i = 0; i < oldIds.size(); i++) {
+            if (oldTexts.get(i) != null) {
+                append(oldIds.get(i), oldTexts.get(i));
+            }
+        }
+    }
+
+    private static int intersect(int[] candidates, int count, IntList other) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < other.size; i++) {
+            while (j < other.size && other.data[j] < candidates[i]) {
+                j++;
+            }
+            if (j < other.size && other.data[j] == candidates[i]) {
+                candidates[kept++] = candidates[i];
+            }
+        }
+        return kept;
+    }
+
+    private static String normalize(Contractor contractor) {
+        return String.join(String.valueOf(FIELD_SEPARATOR),
+                lower(contractor.getName()), lower(contractor.getNameFull()),
+                lower(contractor.getInn()), lower(contractor.getOgrn()));
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.toLowerCase(Locale.ROOT) : "";
+    }
+
+    private static long gram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32) | ((long) text.charAt(offset + 1) << 16) | text.charAt(offset + 2);
+    }
+
+    /**
+     * Растущий массив int без упаковки в {@link Integer}.
+     */
+    private static final class IntList {
+
+        private int[] data = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == data.length) {
+                data = Arrays.copyOf(data, size * 2);
+            }
+            data[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+    }
+
+}
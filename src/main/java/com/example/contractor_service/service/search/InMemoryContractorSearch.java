@@ -0,0 +1,335 @@
+package com.example.contractor_service.service.search;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.Country;
+import com.example.contractor_service.model.OrgForm;
+import com.example.contractor_service.repository.ContractorRepository;
+import com.example.contractor_service.service.CountryService;
+import com.example.contractor_service.service.OrgFormService;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * {@code InMemoryContractorSearch} — встроенный поисковый движок контрагентов.
+ * <p>
+ * Включается свойством {@code contractor.search.engine=memory}. При старте приложения строит
+ * по всем активным контрагентам {@link ContractorTextIndex} для фильтра {@code contractor_search}
+ * и {@link ContractorFilterIndex} для фильтров {@code countryId}, {@code country}, {@code industry}
+ * и {@code org_form}, после чего поддерживает оба индекса в актуальном состоянии при сохранении
+ * и удалении через {@code ContractorService}. Движок определяет только множество подходящих ID;
+ * данные страницы по-прежнему читаются из базы.
+ * </p>
+ * <p>
+ * Фильтры по наименованию страны и орг. формы сводятся к набору ID через справочные сервисы,
+ * поэтому повторяют семантику {@code LOWER(name) LIKE LOWER('%value%')}.
+ * </p>
+ * <p>
+ * Изменения, сделанные другими экземплярами сервиса, видны только после перестроения индекса
+ * ({@link #rebuild()}), поэтому режим рассчитан на один экземпляр или на допустимую задержку.
+ * </p>
+ */
+@Component
+@Slf4j
+public class InMemoryContractorSearch {
+
+    static final String SEARCH_FILTER = "contractor_search";
+
+    private static final Set<String> SUPPORTED_FILTERS = Set.of(SEARCH_FILTER, "countryId", "country", "industry", "org_form");
+
+    private final ContractorRepository contractorRepository;
+    private final CountryService countryService;
+    private final OrgFormService orgFormService;
+    private final boolean enabled;
+    private final long bulkRebuildThreshold;
+
+    private final Object writeLock = new Object();
+    private volatile Indexes indexes;
+    private List<Consumer<Indexes>> pendingDuringRebuild;
+
+    public InMemoryContractorSearch(ContractorRepository contractorRepository,
+                                    CountryService countryService,
+                                    OrgFormService orgFormService,
+                                    @Value("${contractor.search.engine:sql}") String engine,
+                                    @Value("${contractor.search.bulk-rebuild-threshold:10000}") long bulkRebuildThreshold) {
+        this.contractorRepository = contractorRepository;
+        this.countryService = countryService;
+        this.orgFormService = orgFormService;
+        this.enabled = "memory".equalsIgnoreCase(engine);
+        this.bulkRebuildThreshold = bulkRebuildThreshold;
+    }
+
+    /**
+     * Строит индекс после старта приложения, если включён режим {@code memory}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Полностью перестраивает индекс по данным из базы. Изменения, пришедшие во время
+     * перестроения, применяются к новому индексу перед его публикацией.
+     */
+    public void rebuild() {
+        synchronized (writeLock) {
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        long start = System.currentTimeMillis();
+        List<Contractor> contractors = contractorRepository.findAll().stream()
+                .filter(contractor -> !Boolean.FALSE.equals(contractor.getIsActive()))
+                .toList();
+        ContractorTextIndex text = new ContractorTextIndex();
+        contractors.forEach(text::put);
+        Indexes fresh = new Indexes(text, ContractorFilterIndex.build(contractors));
+
+        synchronized (writeLock) {
+            pendingDuringRebuild.forEach(operation -> operation.accept(fresh));
+            pendingDuringRebuild = null;
+            indexes = fresh;
+        }
+        log.info("In-memory contractor search index built: {} contractors in {} ms",
+                text.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Проверяет, может ли движок полностью обработать набор фильтров.
+     * Поддерживаются {@code contractor_search} длиной не меньше триграммы, {@code countryId},
+     * {@code industry}, {@code country} и {@code org_form}; значения частичных фильтров не должны
+     * содержать символов шаблона LIKE. Остальные запросы выполняются через SQL.
+     *
+     * @param filters Фильтры поиска.
+     * @return {@code true}, если результат можно получить из индекса.
+     */
+    public boolean canServe(Map<String, String> filters) {
+        if (indexes == null) {
+            return false;
+        }
+        if (filters == null) {
+            return true;
+        }
+        for (Map.Entry<String, String> filter : filters.entrySet()) {
+            String key = filter.getKey();
+            String value = filter.getValue();
+            if (!SUPPORTED_FILTERS.contains(key) || value == null) {
+                return false;
+            }
+            boolean partial = SEARCH_FILTER.equals(key) || "country".equals(key) || "org_form".equals(key);
+            if (partial && value.chars().anyMatch(ch -> ch == '%' || ch == '_' || ch == '\\')) {
+                return false;
+            }
+            if (SEARCH_FILTER.equals(key) && value.length() < ContractorTextIndex.GRAM_LENGTH) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Возвращает отсортированные ID активных контрагентов, подходящих под фильтры.
+     * Перед вызовом нужно убедиться, что {@link #canServe(Map)} возвращает {@code true}.
+     *
+     * @param filters Фильтры поиска.
+     * @return ID контрагентов в порядке возрастания.
+     */
+    public List<String> findIds(Map<String, String> filters) {
+        Indexes current = indexes;
+        RoaringBitmap matched = matchFilters(current.filter(), filters);
+        String query = filters != null ? filters.get(SEARCH_FILTER) : null;
+        if (query == null) {
+            return current.filter().ids(matched);
+        }
+        List<String> found = current.text().search(query);
+        if (filters.size() == 1) {
+            return found;
+        }
+        return found.stream()
+                .filter(id -> current.filter().contains(matched, id))
+                .toList();
+    }
+
+    /**
+     * Подсчитывает активных контрагентов, подходящих под фильтры. Без {@code contractor_search}
+     * ответ вычисляется кардинальностью пересечения битмапов без построения списка ID.
+     * Перед вызовом нужно убедиться, что {@link #canServe(Map)} возвращает {@code true}.
+     *
+     * @param filters Фильтры поиска.
+     * @return Количество контрагентов.
+     */
+    public int count(Map<String, String> filters) {
+        if (filters != null && filters.containsKey(SEARCH_FILTER)) {
+            return findIds(filters).size();
+        }
+        return matchFilters(indexes.filter(), filters).getCardinality();
+    }
+
+    /**
+     * Возвращает объём памяти битмапов фильтров в байтах.
+     *
+     * @return Размеры битмапов по именам; пустая карта, если движок выключен или индекс ещё не построен.
+     */
+    public Map<String, Long> bitmapMemoryUsage() {
+        Indexes current = indexes;
+        return current != null ? current.filter().memoryUsage() : Collections.emptyMap();
+    }
+
+    /**
+     * Отражает в индексе сохранение контрагента. Если вызов происходит внутри транзакции,
+     * изменение применяется только после её успешной фиксации.
+     *
+     * @param contractor Сохранённый контрагент.
+     */
+    public void onSaved(Contractor contractor) {
+        afterCommit(current -> put(current, contractor));
+    }
+
+    /**
+     * Отражает в индексе сохранение порции контрагентов одной операцией после фиксации транзакции.
+     *
+     * @param contractors Сохранённые контрагенты.
+     */
+    public void onSaved(Collection<Contractor> contractors) {
+        List<Contractor> copy = List.copyOf(contractors);
+        afterCommit(current -> copy.forEach(contractor -> put(current, contractor)));
+    }
+
+    /**
+     * Отражает в индексе логическое удаление контрагента.
+     *
+     * @param id ID удалённого контрагента.
+     */
+    public void onDeleted(String id) {
+        afterCommit(current -> {
+            current.text().remove(id);
+            current.filter().remove(id);
+        });
+    }
+
+    /**
+     * Отражает в индексе массовое изменение, состав которого заранее неизвестен и слишком велик,
+     * чтобы держать его в памяти (например, импорт через COPY). После фиксации транзакции источник
+     * передаёт изменённые строки порциями, и каждая применяется как {@link #onSaved(Collection)}.
+     * Если изменено больше {@code contractor.search.bulk-rebuild-threshold} строк, индекс дешевле
+     * перестроить целиком, и источник не читается.
+     *
+     * @param changed     Количество изменённых строк.
+     * @param changedRows Источник, передающий в обработчик изменённых контрагентов порциями.
+     */
+    public void onBulkChange(long changed, Consumer<Consumer<List<Contractor>>> changedRows) {
+        runAfterCommit(() -> {
+            if (changed > bulkRebuildThreshold) {
+                rebuild();
+                return;
+            }
+            try {
+                changedRows.accept(chunk -> apply(current -> chunk.forEach(contractor -> put(current, contractor))));
+            } catch (RuntimeException e) {
+                log.warn("Failed to apply bulk change to in-memory contractor search, rebuilding: {}", e.getMessage());
+                rebuild();
+            }
+        });
+    }
+
+    private RoaringBitmap matchFilters(ContractorFilterIndex index, Map<String, String> filters) {
+        if (filters == null) {
+            return index.match(null, null, null);
+        }
+        Set<String> countryIds = null;
+        if (filters.containsKey("countryId")) {
+            countryIds = Set.of(filters.get("countryId"));
+        }
+        if (filters.containsKey("country")) {
+            String needle = filters.get("country").toLowerCase(Locale.ROOT);
+            Set<String> byName = countryService.findAll().stream()
+                    .filter(country -> country.getName() != null && country.getName().toLowerCase(Locale.ROOT).contains(needle))
+                    .map(Country::getId)
+                    .collect(Collectors.toSet());
+            countryIds = countryIds == null ? byName : byName.containsAll(countryIds) ? countryIds : Set.of();
+        }
+
+        Integer industryId = null;
+        if (filters.containsKey("industry")) {
+            try {
+                industryId = Integer.parseInt(filters.get("industry"));
+            } catch (NumberFormatException e) {
+                log.warn("Invalid industry id '{}', filter skipped", filters.get("industry"));
+            }
+        }
+
+        Set<Integer> orgFormIds = null;
+        if (filters.containsKey("org_form")) {
+            String needle = filters.get("org_form").toLowerCase(Locale.ROOT);
+            orgFormIds = orgFormService.findAll().stream()
+                    .filter(orgForm -> orgForm.getName() != null && orgForm.getName().toLowerCase(Locale.ROOT).contains(needle))
+                    .map(OrgForm::getId)
+                    .collect(Collectors.toSet());
+        }
+        return index.match(countryIds, industryId, orgFormIds);
+    }
+
+    private static void put(Indexes current, Contractor contractor) {
+        if (Boolean.FALSE.equals(contractor.getIsActive())) {
+            current.text().remove(contractor.getId());
+            current.filter().remove(contractor.getId());
+        } else {
+            current.text().put(contractor);
+            current.filter().put(contractor);
+        }
+    }
+
+    private void afterCommit(Consumer<Indexes> operation) {
+        runAfterCommit(() -> apply(operation));
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void apply(Consumer<Indexes> operation) {
+        synchronized (writeLock) {
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(operation);
+            }
+            Indexes current = indexes;
+            if (current != null) {
+                operation.accept(current);
+            }
+        }
+    }
+
+    /**
+     * Согласованная пара индексов, построенных по одному снимку данных.
+     */
+    private record Indexes(ContractorTextIndex text, ContractorFilterIndex filter) {
+    }
+
+}
@@ -1,11 +1,17 @@
 package com.example.contractor_service.service.security;
 
 import com.example.contractor_service.model.security.TokenData;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -13,7 +19,12 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -23,6 +34,12 @@ import java.util.stream.Collectors;
  * <p>
  * Он использует секретный ключ и время жизни, настроенные через свойства приложения.
  * </p>
+ * <p>
+ * Парсер с ключом проверки подписи создаётся один раз при старте. Результат проверки токена
+ * кешируется по SHA-256 токена до истечения его срока действия, но не дольше {@code jwt.cache.max-ttl};
+ * размер кеша ограничен {@code jwt.cache.max-size}. Поэтому повторный запрос с тем же токеном
+ * не проверяет подпись заново, а обходится одним поиском в кеше.
+ * </p>
  */
 @Service
 @Slf4j
@@ -35,6 +52,33 @@ public class JwtService {
     @Value("${jwt.secret}")
     private String secretKey;
 
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    @Value("${jwt.cache.max-ttl:10m}")
+    private Duration cacheMaxTtl;
+
+    private JwtParser parser;
+
+    private Cache<String, VerifiedToken> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(Expiry.creating((String digest, VerifiedToken verified) -> {
+                    Duration untilExpiration = Duration.between(Instant.now(), verified.expiration().toInstant());
+                    if (untilExpiration.isNegative()) {
+                        return Duration.ZERO;
+                    }
+                    return untilExpiration.compareTo(cacheMaxTtl) < 0 ? untilExpiration : cacheMaxTtl;
+                }))
+                .build();
+    }
+
     /**
      * Извлекает ID пользователя из JWT-токена.
      *
@@ -91,11 +135,7 @@ public class JwtService {
     @SneakyThrows
     private Claims getAllClaimsFromToken(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8)))
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return parser.parseSignedClaims(token).getPayload();
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Error! Wrong argument passed!");
         }
@@ -110,14 +150,7 @@ public class JwtService {
      * и список прав доступа.
      */
     public TokenData parseToken(String token) {
-        return TokenData.builder()
-                .token(token)
-                .username(getUserNameFromToken(token))
-                .authorities(getRolesFromToken(token).stream()
-                        .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList()))
-                .id(getUserIdFromToken(token))
-                .build();
+        return verify(token).tokenData();
     }
 
     /**
@@ -129,7 +162,7 @@ public class JwtService {
      */
     public boolean isTokenExpired(String token) {
         try {
-            return getAllClaimsFromToken(token).getExpiration().before(new Date());
+            return verify(token).expiration().before(new Date());
         } catch (ExpiredJwtException e) {
             return true;
         } catch (JwtException | IllegalArgumentException e) {
@@ -138,4 +171,50 @@ public class JwtService {
         }
     }
 
+    /**
+     * Возвращает проверенные данные токена из кеша или проверяет подпись и разбирает клеймы
+     * за один проход парсера. Недействительные токены не кешируются.
+     *
+     * @param token JWT-токен.
+     * @return Данные токена и момент истечения его срока действия.
+     * @throws JwtException Если токен недействителен или истёк.
+     */
+    private VerifiedToken verify(String token) {
+        String digest = digest(token);
+        VerifiedToken cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            return cached;
+        }
+        Claims claims = getAllClaimsFromToken(token);
+        if (claims.getExpiration() == null) {
+            throw new MalformedJwtException("Token has no expiration");
+        }
+        List<String> roles = claims.get("roles", List.class);
+        if (roles == null) {
+            throw new MalformedJwtException("Token has no roles");
+        }
+        VerifiedToken verified = new VerifiedToken(TokenData.builder()
+                .token(token)
+                .username(claims.get("username", String.class))
+                .authorities(roles.stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList()))
+                .id(claims.get("userId", Long.class))
+                .build(), claims.getExpiration());
+        verifiedTokens.put(digest, verified);
+        return verified;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private record VerifiedToken(TokenData tokenData, Date expiration) {
+    }
+
 }
@@ -0,0 +1,100 @@
+package com.example.contractor_service.util;
+
+import com.example.contractor_service.config.redis.BulkCache;
+import com.example.contractor_service.config.redis.TwoLevelCache;
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * {@code CacheUtil} — вспомогательный класс для пакетной работы с кешами справочников.
+ * <p>
+ * Если кеш поддерживает {@link BulkCache}, все ключи читаются одним обращением к Redis,
+ * а загруженные из базы промахи записываются обратно одной пачкой. Для остальных кешей
+ * используется поштучный доступ. Загруженные промахи записываются в {@link TwoLevelCache#fills()},
+ * поэтому другим экземплярам не рассылаются.
+ * </p>
+ */
+public final class CacheUtil {
+
+    private CacheUtil() {
+
+    }
+
+    /**
+     * Возвращает записи по идентификаторам, загружая из источника только отсутствующие в кеше.
+     *
+     * @param cache       Кеш записей по идентификатору.
+     * @param ids         Идентификаторы; повторы и {@code null} игнорируются.
+     * @param loader      Загрузка записей из базы по списку идентификаторов.
+     * @param idExtractor Получение идентификатора записи.
+     * @return Найденные записи в порядке идентификаторов; неизвестные идентификаторы пропускаются.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> List<V> getAll(Cache cache, Collection<K> ids, Function<List<K>, List<V>> loader,
+                                        Function<V, K> idExtractor) {
+        Set<K> keys = new LinkedHashSet<>(ids);
+        keys.remove(null);
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+
+        Map<K, V> found = new LinkedHashMap<>();
+        if (cache instanceof BulkCache bulkCache) {
+            bulkCache.getAll(keys).forEach((key, value) -> found.put((K) key, (V) value));
+        } else if (cache != null) {
+            for (K key : keys) {
+                Cache.ValueWrapper wrapper = cache.get(key);
+                if (wrapper != null && wrapper.get() != null) {
+                    found.put(key, (V) wrapper.get());
+                }
+            }
+        }
+
+        List<K> missing = keys.stream()
+                .filter(key -> !found.containsKey(key))
+                .toList();
+        if (!missing.isEmpty()) {
+            List<V> loaded = loader.apply(missing);
+            putAll(cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache.fills() : cache, loaded, idExtractor);
+            loaded.forEach(value -> found.put(idExtractor.apply(value), value));
+        }
+
+        List<V> result = new ArrayList<>(found.size());
+        for (K key : keys) {
+            V value = found.get(key);
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Записывает значения в кеш по их идентификаторам.
+     *
+     * @param cache       Кеш записей по идентификатору.
+     * @param values      Записи.
+     * @param idExtractor Получение идентификатора записи.
+     */
+    public static <K, V> void putAll(Cache cache, Collection<V> values, Function<V, K> idExtractor) {
+        if (cache == null || values.isEmpty()) {
+            return;
+        }
+        if (cache instanceof BulkCache bulkCache) {
+            Map<K, V> entries = new LinkedHashMap<>();
+            values.forEach(value -> entries.put(idExtractor.apply(value), value));
+            bulkCache.putAll(entries);
+        } else {
+            values.forEach(value -> cache.put(idExtractor.apply(value), value));
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.example.contractor_service.util;
+
+import com.example.contractor_service.model.Contractor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Потоковое чтение контрагентов из CSV с разделителем {@code ;} (UTF-8, допускается BOM).
+ * <p>
+ * Первая строка — заголовок и пропускается. Колонки идут в порядке
+ * {@code id;parent_id;name;name_full;inn;ogrn;country;industry;org_form}; пустое поле означает
+ * {@code null}. Строки без ID, с меньшим числом колонок, с нечисловыми industry / org_form или с ID
+ * либо parent_id длиннее {@value #MAX_ID_LENGTH} символов (размер колонки {@code contractor.id})
+ * пропускаются и учитываются в {@link #getSkipped()}. Следующая строка читается только
+ * при обращении к итератору, поэтому файл не загружается в память целиком.
+ * </p>
+ */
+public class ContractorCsvReader implements Iterator<Contractor> {
+
+    private static final int COLUMNS = 9;
+    private static final int MAX_ID_LENGTH = 12;
+
+    private final BufferedReader reader;
+    private boolean headerSkipped;
+    private Contractor next;
+    private long skipped;
+
+    public ContractorCsvReader(InputStream csv) {
+        this.reader = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            if (!headerSkipped) {
+                headerSkipped = true;
+                if (reader.readLine() == null) {
+                    return false;
+                }
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                next = parse(CsvUtil.stripBom(line));
+                if (next != null) {
+                    return true;
+                }
+                skipped++;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public Contractor next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Contractor contractor = next;
+        next = null;
+        return contractor;
+    }
+
+    /**
+     * @return Количество пропущенных некорректных строк.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    private static Contractor parse(String line) {
+        String[] fields = CsvUtil.split(line, COLUMNS);
+        if (fields.length < COLUMNS || emptyToNull(fields[0]) == null) {
+            return null;
+        }
+        try {
+            Contractor contractor = new Contractor();
+            contractor.setId(fields[0].trim());
+            contractor.setParentId(emptyToNull(fields[1]));
+            contractor.setName(emptyToNull(fields[2]));
+            contractor.setNameFull(emptyToNull(fields[3]));
+            contractor.setInn(emptyToNull(fields[4]));
+            contractor.setOgrn(emptyToNull(fields[5]));
+            contractor.setCountryId(emptyToNull(fields[6]));
+            contractor.setIndustryId(toInteger(fields[7]));
+            contractor.setOrgFormId(toInteger(fields[8]));
+            if (contractor.getId().length() > MAX_ID_LENGTH
+                    || contractor.getParentId() != null && contractor.getParentId().length() > MAX_ID_LENGTH) {
+                return null;
+            }
+            return contractor;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static Integer toInteger(String value) {
+        String trimmed = emptyToNull(value);
+        return trimmed != null ? Integer.valueOf(trimmed) : null;
+    }
+
+}
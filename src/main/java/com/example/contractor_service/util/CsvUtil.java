@@ -0,0 +1,46 @@
+package com.example.contractor_service.util;
+
+import java.util.regex.Pattern;
+
+/**
+ * {@code CsvUtil} — вспомогательный класс для разбора CSV-строк с разделителем {@code ;}.
+ * <p>
+ * Используется начальной загрузкой справочников ({@link DataLoader}) и импортом контрагентов.
+ * Поля не обрамляются кавычками, поэтому последнее поле строки может содержать разделитель:
+ * строка делится не более чем на заданное число полей.
+ * </p>
+ */
+public final class CsvUtil {
+
+    public static final String SEPARATOR = ";";
+
+    private static final Pattern SEPARATOR_PATTERN = Pattern.compile(Pattern.quote(SEPARATOR));
+    private static final String BOM = "\uFEFF";
+
+    private CsvUtil() {
+
+    }
+
+    /**
+     * Удаляет метку порядка байтов (BOM), с которой начинаются файлы, сохранённые в Excel.
+     *
+     * @param line Первая строка файла.
+     * @return Строка без BOM.
+     */
+    public static String stripBom(String line) {
+        return line != null && line.startsWith(BOM) ? line.substring(BOM.length()) : line;
+    }
+
+    /**
+     * Делит строку на поля по разделителю {@link #SEPARATOR}.
+     *
+     * @param line   Строка CSV.
+     * @param fields Максимальное число полей; всё после последнего учитываемого разделителя
+     *               попадает в последнее поле.
+     * @return Поля строки; их может быть меньше {@code fields}, если разделителей не хватает.
+     */
+    public static String[] split(String line, int fields) {
+        return SEPARATOR_PATTERN.split(line, fields);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.example.contractor_service.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * {@code CursorUtil} — вспомогательный класс для работы с курсорами keyset-пагинации.
+ * <p>
+ * Курсор является непрозрачной для клиента строкой: внутри него закодирован
+ * идентификатор последнего контрагента на странице. Клиент лишь передаёт
+ * полученный {@code nextCursor} обратно в поле {@code after} следующего запроса.
+ * </p>
+ * <p>
+ * Курсор также помнит порядок, в котором выдавались страницы: порядок сравнения базы
+ * или побайтовый порядок {@link String#compareTo} встроенного поиска. Продолжать выборку
+ * нужно в том же порядке, иначе записи на границе страниц пропускаются или повторяются.
+ * </p>
+ */
+public final class CursorUtil {
+
+    /**
+     * Признак курсора в побайтовом порядке; символ не входит в алфавит Base64 URL-safe.
+     */
+    private static final char BINARY_ORDER_MARK = '~';
+
+    private CursorUtil() {
+
+    }
+
+    /**
+     * Кодирует идентификатор контрагента в непрозрачный курсор.
+     *
+     * @param id ID последнего контрагента на странице.
+     * @return Курсор в формате Base64 URL-safe без выравнивания.
+     */
+    public static String encode(String id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Кодирует идентификатор контрагента в курсор страниц, упорядоченных через {@link String#compareTo}.
+     *
+     * @param id ID последнего контрагента на странице.
+     * @return Курсор с признаком побайтового порядка.
+     */
+    public static String encodeBinaryOrder(String id) {
+        return BINARY_ORDER_MARK + encode(id);
+    }
+
+    /**
+     * Проверяет, выдан ли курсор для страниц в побайтовом порядке.
+     *
+     * @param cursor Курсор из поля {@code after}.
+     * @return {@code true}, если курсор создан через {@link #encodeBinaryOrder(String)}.
+     */
+    public static boolean isBinaryOrder(String cursor) {
+        return !cursor.isEmpty() && cursor.charAt(0) == BINARY_ORDER_MARK;
+    }
+
+    /**
+     * Декодирует курсор, полученный от клиента, обратно в идентификатор контрагента.
+     *
+     * @param cursor Курсор из поля {@code after}.
+     * @return ID контрагента, после которого нужно продолжить выборку.
+     * @throws IllegalArgumentException Если курсор повреждён или пуст.
+     */
+    public static String decode(String cursor) {
+        String encoded = isBinaryOrder(cursor) ? cursor.substring(1) : cursor;
+        String id = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+        if (id.isEmpty()) {
+            throw new IllegalArgumentException("Cursor must not be empty");
+        }
+        return id;
+    }
+
+}
@@ -1,14 +1,16 @@
 package com.example.contractor_service.util;
 
-import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Утилитарный класс для загрузки данных из CSV-файлов в базу данных с использованием {@link JdbcTemplate}.
@@ -17,6 +19,7 @@ import java.nio.charset.StandardCharsets;
  * Поддерживает специфический формат CSV, где поле ID отделено от поля NAME
  * точкой с запятой. Также учитывает, является ли таблица таблицей country или
  * другой таблицей, куда вставляется только NAME, а ID генерируется с помощью автоинкрементации.
+ * Файл читается из classpath, строки вставляются пакетами одним подготовленным запросом.
  *
  * @author sergeJAVA
  */
@@ -24,11 +27,11 @@ public class DataLoader {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DataLoader.class);
     private final JdbcTemplate jdbcTemplate;
-    private static final String SEPARATOR = ";";
     private final String fileName;
     private final String tableName;
     private boolean isCountryTable;
-    private static final String START_PATH = "src/main/resources/db/changelog/data/";
+    private static final String START_PATH = "db/changelog/data/";
+    private static final int BATCH_SIZE = 1000;
 
     /**
      * Конструктор для создания экземпляра {@link DataLoader}.
@@ -49,15 +52,15 @@ public class DataLoader {
     }
 
     /**
-     * Метод, выполняемый после инициализации бина Spring.
-     * Отвечает за загрузку данных из CSV-файла в соответствующую таблицу базы данных.
+     * Загружает данные из CSV-файла в соответствующую таблицу базы данных.
+     * Вызывается из {@code DataInitConfig} после создания всех бинов; загрузчики разных таблиц
+     * независимы и могут выполняться параллельно.
      * Проверяет, существуют ли уже данные в таблице, чтобы избежать повторной загрузки.
      * Обрабатывает специфический формат CSV, где первое поле до точки с запятой - ID,
      * а все остальное - NAME.
      *
      * @throws IOException Если возникает ошибка при чтении CSV-файла.
      */
-    @PostConstruct
     public void loadData() {
         try {
             Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tableName, Integer.class);
@@ -73,9 +76,12 @@ public class DataLoader {
         }
 
         LOGGER.info("Загрузка данных для таблицы \"" + tableName + "\" из CSV с помощью JdbcTemplate: " + START_PATH + fileName);
-        try (BufferedReader br = new BufferedReader(new FileReader(START_PATH + fileName, StandardCharsets.UTF_8))) {
+        long start = System.currentTimeMillis();
+        ClassPathResource resource = new ClassPathResource(START_PATH + fileName);
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
             String line;
             boolean firstLine = true;
+            List<String[]> rows = new ArrayList<>();
 
             while ((line = br.readLine()) != null) {
                 if (firstLine) {
@@ -83,26 +89,28 @@ public class DataLoader {
                     continue;
                 }
 
-                String[] parts = splitCsvLine(line, SEPARATOR);
+                String[] parts = splitCsvLine(line);
 
                 if (parts.length != 2) {
                     continue;
                 }
 
-                String id = parts[0].trim();
-                String name = parts[1].trim();
+                rows.add(new String[]{parts[0].trim(), parts[1].trim()});
+            }
 
+            // Один подготовленный запрос на таблицу, строки передаются пакетами
+            String sql = isCountryTable
+                    ? String.format("INSERT INTO %s (id, name) VALUES (?, ?)", tableName)
+                    : String.format("INSERT INTO %s (name) VALUES (?)", tableName);
+            jdbcTemplate.batchUpdate(sql, rows, BATCH_SIZE, (ps, row) -> {
                 if (isCountryTable) {
-                    // Выполнение INSERT запроса через JdbcTemplate для таблицы country
-                    String sql = String.format("INSERT INTO %s (id, name) VALUES (?, ?)", tableName);
-                    jdbcTemplate.update(sql, id, name);
+                    ps.setString(1, row[0]);
+                    ps.setString(2, row[1]);
                 } else {
-                    // Выполнение INSERT запроса через JdbcTemplate для других таблиц
-                    String sql = String.format("INSERT INTO %s (name) VALUES (?)", tableName);
-                    jdbcTemplate.update(sql, name);
+                    ps.setString(1, row[1]);
                 }
-
-            }
+            });
+            LOGGER.info("Загружено {} строк в таблицу \"{}\" за {} мс", rows.size(), tableName, System.currentTimeMillis() - start);
             LOGGER.info("Данные в таблицу \"" + tableName + "\" успешно инициализированы.");
 
         } catch (IOException e) {
@@ -117,24 +125,23 @@ public class DataLoader {
 
     /**
      * Вспомогательный метод для парсинга одной строки CSV.
-     * Предназначен для CSV-файлов с двумя полями, разделенными заданным {@code separator}.
+     * Предназначен для CSV-файлов с двумя полями, разделенными {@link CsvUtil#SEPARATOR}.
      * Корректно обрабатывает случай, когда второе поле (NAME) содержит символ-разделитель (запятую),
      * так как оно не обрамляется кавычками.
      * Если второе поле равно "-", возвращает пустой массив строк, что будет проигнорировано вызывающим методом.
      *
-     * @param line      Строка из CSV-файла для парсинга.
-     * @param separator Символ-разделитель полей в строке (например, ";").
+     * @param line Строка из CSV-файла для парсинга.
      * @return Массив строк, содержащий ID и NAME, или пустой массив, если NAME равно "-".
      * @throws IOException Если в строке не найден разделитель, что указывает на некорректную структуру файла.
      */
-    private String[] splitCsvLine(String line, String separator) throws IOException {
-        int separatorIndex = line.indexOf(separator);
-        if (separatorIndex == -1) {
+    private String[] splitCsvLine(String line) throws IOException {
+        String[] fields = CsvUtil.split(line, 2);
+        if (fields.length < 2) {
             throw new IOException("Ошибка в структуре файла! Проверьте файл!");
         }
 
-        String id = line.substring(0, separatorIndex);
-        String name = line.substring(separatorIndex + separator.length());
+        String id = fields[0];
+        String name = fields[1];
 
         if (name.equals("-")) {
             return new String[]{};
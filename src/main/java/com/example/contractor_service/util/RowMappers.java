@@ -52,11 +52,11 @@ public final class RowMappers {
     };
 
     /**
-     * {@link RowMapper} для преобразования строки {@link ResultSet} в объект {@link Contractor}.
-     * Этот маппер предназначен для запросов, которые объединяют данные из таблиц `country`, `industry`, `org_form`.
-     * Он заполняет как основные поля контрагента, так и связанные поля (названия страны, индустрии, орг. формы).
+     * {@link RowMapper} для преобразования строки {@link ResultSet} в объект {@link Contractor}
+     * по колонкам одной таблицы `contractor`. Наименования страны, индустрии и орг. формы не заполняются:
+     * их подставляет снимок справочников репозитория.
      */
-    public static final RowMapper<Contractor> CONTRACTOR_ROW_MAPPER = (rs, rowNum) -> {
+    public static final RowMapper<Contractor> CONTRACTOR_TABLE_ROW_MAPPER = (rs, rowNum) -> {
         Contractor contractor = new Contractor();
         contractor.setId(rs.getString("id"));
         contractor.setParentId(rs.getString("parent_id"));
@@ -81,6 +81,17 @@ public final class RowMappers {
         contractor.setModifyUserId(rs.getString("modify_user_id"));
         contractor.setIsActive(rs.getBoolean("is_active"));
 
+        return contractor;
+    };
+
+    /**
+     * {@link RowMapper} для преобразования строки {@link ResultSet} в объект {@link Contractor}.
+     * Этот маппер предназначен для запросов, которые объединяют данные из таблиц `country`, `industry`, `org_form`.
+     * Он заполняет как основные поля контрагента, так и связанные поля (названия страны, индустрии, орг. формы).
+     */
+    public static final RowMapper<Contractor> CONTRACTOR_ROW_MAPPER = (rs, rowNum) -> {
+        Contractor contractor = CONTRACTOR_TABLE_ROW_MAPPER.mapRow(rs, rowNum);
+
         // Связанные поля (из JOIN'ов)
         contractor.setCountryName(rs.getString("country_name"));
         contractor.setIndustryName(rs.getString("industry_name"));
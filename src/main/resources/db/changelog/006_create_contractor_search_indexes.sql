@@ -0,0 +1,6 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_contractor_name_trgm ON contractor USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_contractor_name_full_trgm ON contractor USING GIN (name_full gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_contractor_inn_trgm ON contractor USING GIN (inn gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_contractor_ogrn_trgm ON contractor USING GIN (ogrn gin_trgm_ops);
\ No newline at end of file
@@ -0,0 +1,7 @@
+ALTER TABLE outbox_messages ADD COLUMN IF NOT EXISTS contractor_id VARCHAR(12);
+
+UPDATE outbox_messages SET contractor_id = payload::json ->> 'id'
+WHERE contractor_id IS NULL AND status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_pending_contractor ON outbox_messages (contractor_id)
+    WHERE status = 'PENDING';
\ No newline at end of file
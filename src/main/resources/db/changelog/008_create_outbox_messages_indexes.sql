@@ -0,0 +1,5 @@
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_pending_sent_at ON outbox_messages (sent_at)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_sent_sent_at ON outbox_messages (sent_at)
+    WHERE status = 'SENT';
\ No newline at end of file
@@ -0,0 +1,8 @@
+ALTER TABLE outbox_messages ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0;
+ALTER TABLE outbox_messages ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+ALTER TABLE outbox_messages ADD COLUMN IF NOT EXISTS last_error TEXT;
+
+UPDATE outbox_messages SET status = 'DEAD_LETTER' WHERE status = 'FAILED';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_dead_letter ON outbox_messages (sent_at)
+    WHERE status = 'DEAD_LETTER';
\ No newline at end of file
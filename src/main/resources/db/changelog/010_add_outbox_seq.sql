@@ -0,0 +1,17 @@
+ALTER TABLE outbox_messages ADD COLUMN IF NOT EXISTS seq BIGSERIAL;
+
+-- Существующие строки нумеруются в порядке времени записи, а не в физическом порядке таблицы.
+UPDATE outbox_messages o SET seq = r.rn
+FROM (SELECT message_id, row_number() OVER (ORDER BY sent_at, message_id) AS rn FROM outbox_messages) r
+WHERE o.message_id = r.message_id;
+
+SELECT setval(pg_get_serial_sequence('outbox_messages', 'seq'), COALESCE(MAX(seq), 0) + 1, false) FROM outbox_messages;
+
+DROP INDEX IF EXISTS idx_outbox_messages_pending_contractor;
+DROP INDEX IF EXISTS idx_outbox_messages_pending_sent_at;
+
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_pending_contractor_seq ON outbox_messages (contractor_id, seq)
+    WHERE status = 'PENDING';
+
+CREATE INDEX IF NOT EXISTS idx_outbox_messages_pending_seq ON outbox_messages (seq)
+    WHERE status = 'PENDING';
\ No newline at end of file
@@ -0,0 +1,5 @@
+-- Changeset 007 заполнил contractor_id только ожидающим сообщениям. Сообщения в статусе FAILED, переведённые
+-- changeset 009 в DEAD_LETTER, и старые SENT остались без него, поэтому при возврате в очередь не находились
+-- более новые сообщения того же контрагента.
+UPDATE outbox_messages SET contractor_id = payload::json ->> 'id'
+WHERE contractor_id IS NULL;
\ No newline at end of file
@@ -0,0 +1,146 @@
+package com.example.contractor_service.config.redis;
+
+import com.example.contractor_service.model.Country;
+import com.example.contractor_service.service.CountryService;
+import com.example.contractor_service.testcontainers.TestContainers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@RecordApplicationEvents
+class TwoLevelCacheManagerTest extends TestContainers {
+
+    private static final String CACHE_NAME = "countries";
+    private static final String BY_ID_CACHE_NAME = "countries_by_id";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    @DisplayName("Повторное чтение должно обслуживаться локальным уровнем без обращения к Redis")
+    void repeatedReadShouldBeServedFromLocalLevel() {
+        countryService.findAll();
+        double localHits = gets("l1", "hit");
+        double remoteGets = gets("l2", "hit") + gets("l2", "miss");
+
+        countryService.findAll();
+
+        assertThat(cacheManager).isInstanceOf(TwoLevelCacheManager.class);
+        assertThat(gets("l1", "hit")).isEqualTo(localHits + 1);
+        assertThat(gets("l2", "hit") + gets("l2", "miss")).isEqualTo(remoteGets);
+        assertThat(meterRegistry.get(TwoLevelCache.LATENCY_METRIC).tag("cache", CACHE_NAME).tag("level", "l1").timer().count())
+                .isPositive();
+    }
+
+    @Test
+    @DisplayName("Уведомление другого экземпляра должно сбрасывать локальную копию")
+    void remoteInvalidationShouldEvictLocalCopy() throws Exception {
+        countryService.findAll();
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+
+        // Другой экземпляр удалил запись из Redis: локальная копия пока жива.
+        stringRedisTemplate.delete(CACHE_NAME + "::all");
+        assertThat(cache.get("all")).isNotNull();
+
+        stringRedisTemplate.convertAndSend("cache-invalidation",
+                objectMapper.writeValueAsString(new CacheInvalidationMessage("other-instance", CACHE_NAME, "all")));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.get("all") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(cache.get("all")).isNull();
+    }
+
+    @Test
+    @DisplayName("Заполнение кеша по промаху не должно рассылаться, а запись через @CachePut — должна")
+    void onlyRealWritesShouldBeBroadcast() {
+        cacheManager.getCache(CACHE_NAME).evict("all");
+        applicationEvents.clear();
+
+        countryService.findAll();
+
+        assertThat(cacheManager.getCache(CACHE_NAME).get("all")).isNotNull();
+        assertThat(invalidations()).isEmpty();
+
+        countryService.save(new Country("TLC", "Страна кеша"));
+
+        assertThat(invalidations()).containsExactlyInAnyOrder(
+                new CacheInvalidatedEvent(BY_ID_CACHE_NAME, "TLC", false),
+                new CacheInvalidatedEvent(CACHE_NAME, "all", false));
+        countryService.delete("TLC");
+    }
+
+    @Test
+    @DisplayName("Пакетная запись должна рассылаться одним уведомлением, а уведомление о нескольких ключах — сбрасывать только их")
+    void putAllShouldBeBroadcastOnce() throws Exception {
+        BulkCache cache = (BulkCache) cacheManager.getCache(BY_ID_CACHE_NAME);
+        applicationEvents.clear();
+
+        cache.putAll(Map.of("K1", new Country("K1", "Первая"), "K2", new Country("K2", "Вторая"),
+                "K3", new Country("K3", "Третья")));
+
+        assertThat(invalidations()).containsExactly(new CacheInvalidatedEvent(BY_ID_CACHE_NAME, null, false));
+
+        // Другой экземпляр изменил две записи: третья локальная копия должна остаться.
+        stringRedisTemplate.delete(List.of(BY_ID_CACHE_NAME + "::K1", BY_ID_CACHE_NAME + "::K2", BY_ID_CACHE_NAME + "::K3"));
+        stringRedisTemplate.convertAndSend("cache-invalidation", objectMapper.writeValueAsString(
+                new CacheInvalidationMessage("other-instance", BY_ID_CACHE_NAME, null, List.of("K1", "K2"))));
+
+        Cache twoLevelCache = (Cache) cache;
+        long deadline = System.currentTimeMillis() + 5000;
+        while (twoLevelCache.get("K2") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(twoLevelCache.get("K1")).isNull();
+        assertThat(twoLevelCache.get("K2")).isNull();
+        assertThat(twoLevelCache.get("K3")).isNotNull();
+    }
+
+    private List<CacheInvalidatedEvent> invalidations() {
+        return applicationEvents.stream(CacheInvalidatedEvent.class).toList();
+    }
+
+    private double gets(String level, String result) {
+        return meterRegistry.get(TwoLevelCache.GETS_METRIC)
+                .tag("cache", CACHE_NAME)
+                .tag("level", level)
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+
+}
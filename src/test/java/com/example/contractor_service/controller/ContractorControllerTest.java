@@ -6,17 +6,21 @@ import com.example.contractor_service.testcontainers.TestContainers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.cache.CacheManager;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -24,6 +28,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -39,6 +44,9 @@ public class ContractorControllerTest extends TestContainers {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @MockitoSpyBean
     private OutboxMessageService outboxMessageService;
 
@@ -190,4 +198,298 @@ public class ContractorControllerTest extends TestContainers {
         verify(outboxMessageService, times(1)).saveContractor(any(Contractor.class));
     }
 
+    @Test
+    @DisplayName("Должен листать результаты поиска по курсору nextCursor")
+    void shouldPaginateSearchWithCursor() throws Exception {
+        for (String id : new String[]{"KEYSET_1", "KEYSET_2", "KEYSET_3"}) {
+            Contractor contractor = new Contractor();
+            contractor.setId(id);
+            contractor.setName("Keyset " + id);
+            contractor.setCountryId("RUS");
+            contractor.setIndustryId(1);
+            contractor.setOrgFormId(1);
+            mockMvc.perform(put("/contractor/save")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(contractor)))
+                    .andExpect(status().isCreated());
+        }
+
+        SearchRequest searchRequest = new SearchRequest();
+        searchRequest.setFilters(Map.of("contractor_search", "Keyset"));
+        searchRequest.setSize(2);
+
+        MvcResult first = mockMvc.perform(post("/contractor/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(searchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contractors.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andReturn();
+        SearchResponse firstPage = objectMapper.readValue(first.getResponse().getContentAsString(), SearchResponse.class);
+        assertThat(firstPage.getNextCursor()).isNotNull();
+
+        searchRequest.setAfter(firstPage.getNextCursor());
+        mockMvc.perform(post("/contractor/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(searchRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contractors.length()").value(1))
+                .andExpect(jsonPath("$.contractors[0].id").value("KEYSET_3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        searchRequest.setAfter("%%%");
+        mockMvc.perform(post("/contractor/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(searchRequest)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Должен пропускать подсчёт общего количества при totalMode=none")
+    void shouldSkipTotalWhenTotalModeIsNone() throws Exception {
+        Contractor contractor = new Contractor();
+        contractor.setId("TOTAL_NONE");
+        contractor.setName("Total mode contractor");
+        contractor.setCountryId("RUS");
+        contractor.setIndustryId(1);
+        contractor.setOrgFormId(1);
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contractor)))
+                .andExpect(status().isCreated());
+
+        String request = "{\"filters\": {\"contractor_id\": \"TOTAL_NONE\"}, \"page\": 0, \"size\": 10, \"totalMode\": \"none\"}";
+
+        mockMvc.perform(post("/contractor/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.contractors[0].id").value("TOTAL_NONE"))
+                .andExpect(jsonPath("$.totalElements").value(-1))
+                .andExpect(jsonPath("$.totalPages").value(-1));
+    }
+
+    @Test
+    @DisplayName("Должен выгружать всех активных контрагентов потоком NDJSON")
+    void shouldStreamAllContractorsAsNdjson() throws Exception {
+        Contractor contractor = new Contractor();
+        contractor.setId("STREAM_1");
+        contractor.setName("Stream contractor");
+        contractor.setCountryId("RUS");
+        contractor.setIndustryId(1);
+        contractor.setOrgFormId(1);
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contractor)))
+                .andExpect(status().isCreated());
+
+        MvcResult all = mockMvc.perform(get("/contractor/all"))
+                .andExpect(status().isOk())
+                .andReturn();
+        Contractor[] expected = objectMapper.readValue(all.getResponse().getContentAsString(), Contractor[].class);
+
+        MvcResult started = mockMvc.perform(get("/contractor/all/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streamed = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        String[] lines = streamed.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(expected.length);
+        assertThat(lines)
+                .map(line -> objectMapper.readValue(line, Contractor.class).getId())
+                .contains("STREAM_1");
+    }
+
+    @Test
+    @DisplayName("Должен массово сохранить контрагентов из NDJSON и вернуть итоги")
+    void shouldBulkSaveContractorsFromNdjson() throws Exception {
+        Contractor existing = new Contractor();
+        existing.setId("BULK_1");
+        existing.setName("Bulk one");
+        existing.setCountryId("RUS");
+        existing.setIndustryId(1);
+        existing.setOrgFormId(1);
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(existing)))
+                .andExpect(status().isCreated());
+
+        String body = """
+                {"id": "BULK_1", "name": "Bulk one updated", "countryId": "RUS", "industryId": 1, "orgFormId": 1}
+                {"id": "BULK_2", "name": "Bulk two", "countryId": "RUS", "industryId": 1, "orgFormId": 1}
+                {"name": "Bulk without id"}
+                {"id": "BULK_3", "name": "Bulk unknown country", "countryId": "XXX"}
+                """;
+
+        mockMvc.perform(put("/contractor/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(2));
+
+        mockMvc.perform(get("/contractor/{id}", "BULK_1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Bulk one updated"));
+        mockMvc.perform(get("/contractor/{id}", "BULK_2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.countryName").value("Российская Федерация"));
+        mockMvc.perform(get("/contractor/{id}", "BULK_3"))
+                .andExpect(status().isNotFound());
+        verify(outboxMessageService, times(1)).saveContractor(any(Contractor.class));
+    }
+
+    @Test
+    @DisplayName("Должен импортировать контрагентов из CSV через COPY и записать события в outbox")
+    void shouldImportContractorsFromCsv() throws Exception {
+        Contractor existing = new Contractor();
+        existing.setId("IMP_EXIST");
+        existing.setName("Import existing");
+        existing.setCountryId("RUS");
+        existing.setIndustryId(1);
+        existing.setOrgFormId(1);
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(existing)))
+                .andExpect(status().isCreated());
+
+        String csv = "\uFEFFid;parent_id;name;name_full;inn;ogrn;country;industry;org_form\n"
+                + "IMP_EXIST;;Import existing updated;;;;RUS;1;1\n"
+                + "IMP_NEW;IMP_EXIST;Import first version;;123;;RUS;1;1\n"
+                + "IMP_BAD;;Import unknown country;;;;XXX;1;1\n"
+                + "IMP_SHORT;Import malformed\n"
+                + "IMP_NEW;IMP_EXIST;Import new;Полное наименование;123;456;RUS;1;1\n";
+
+        mockMvc.perform(post("/contractor/import")
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.failed").value(2));
+
+        MvcResult imported = mockMvc.perform(get("/contractor/{id}", "IMP_NEW"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Import new"))
+                .andExpect(jsonPath("$.nameFull").value("Полное наименование"))
+                .andExpect(jsonPath("$.parentId").value("IMP_EXIST"))
+                .andReturn();
+        mockMvc.perform(get("/contractor/{id}", "IMP_EXIST"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Import existing updated"));
+        mockMvc.perform(get("/contractor/{id}", "IMP_BAD"))
+                .andExpect(status().isNotFound());
+
+        String payload = jdbcTemplate.queryForObject(
+                "SELECT payload FROM outbox_messages WHERE payload LIKE '%\"IMP_NEW\"%'", String.class);
+        Contractor published = objectMapper.readValue(payload, Contractor.class);
+        assertThat(published.getName()).isEqualTo("Import new");
+        assertThat(published.getCountryName()).isEqualTo("Российская Федерация");
+        assertThat(published.getIsActive()).isTrue();
+        assertThat(published.getCreateDate()).isNotNull();
+
+        // Payload, собранный в SQL, должен совпадать с телом, которое сформировал бы конвертер RabbitMQ.
+        Contractor saved = objectMapper.readValue(imported.getResponse().getContentAsString(StandardCharsets.UTF_8), Contractor.class);
+        byte[] expected = new Jackson2JsonMessageConverter().toMessage(saved, new MessageProperties()).getBody();
+        assertThat(objectMapper.readTree(payload)).isEqualTo(objectMapper.readTree(expected));
+    }
+
+    @Test
+    @DisplayName("Должен выгружать отфильтрованных контрагентов в NDJSON и CSV через COPY")
+    void shouldExportFilteredContractors() throws Exception {
+        Contractor contractor = new Contractor();
+        contractor.setId("EXPORT_1");
+        contractor.setName("O'Export \"quoted\" \\ name");
+        contractor.setCountryId("RUS");
+        contractor.setIndustryId(1);
+        contractor.setOrgFormId(1);
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contractor)))
+                .andExpect(status().isCreated());
+
+        MvcResult ndjsonStarted = mockMvc.perform(post("/contractor/export")
+                        .param("format", "ndjson")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contractor_search\": \"O'Export\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult ndjson = mockMvc.perform(asyncDispatch(ndjsonStarted))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        String[] lines = ndjson.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1);
+        Contractor exported = objectMapper.readValue(lines[0], Contractor.class);
+        assertThat(exported.getId()).isEqualTo("EXPORT_1");
+        assertThat(exported.getName()).isEqualTo(contractor.getName());
+        assertThat(exported.getCountryName()).isEqualTo("Российская Федерация");
+
+        MvcResult csvStarted = mockMvc.perform(post("/contractor/export")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"contractor_id\": \"EXPORT_1\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult csv = mockMvc.perform(asyncDispatch(csvStarted))
+                .andExpect(status().isOk())
+                .andReturn();
+        String[] rows = csv.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).hasSize(2);
+        assertThat(rows[0]).startsWith("id;parent_id;name");
+        assertThat(rows[1]).startsWith("EXPORT_1;");
+
+        mockMvc.perform(post("/contractor/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Слишком длинные ID и родители из отброшенных строк файла должны учитываться как ошибки импорта")
+    void importShouldCountInvalidIdsAndUnresolvedParentsAsFailed() throws Exception {
+        String csv = "id;parent_id;name;name_full;inn;ogrn;country;industry;org_form\n"
+                + "IMP_LONG_ID_123;;Too long id;;;;RUS;1;1\n"
+                + "IMP_LP;IMP_PARENT_TOO_LONG;Too long parent;;;;RUS;1;1\n"
+                + "IMP_BADP;;Unknown country parent;;;;XXX;1;1\n"
+                + "IMP_ORPH;IMP_BADP;Child of rejected row;;;;RUS;1;1\n"
+                + "IMP_GRAND;IMP_CHILD;Grandchild;;;;RUS;1;1\n"
+                + "IMP_CHILD;IMP_ROOT;Child;;;;RUS;1;1\n"
+                + "IMP_ROOT;;Root;;;;RUS;1;1\n";
+
+        mockMvc.perform(post("/contractor/import")
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.inserted").value(3))
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.failed").value(4));
+
+        mockMvc.perform(get("/contractor/{id}", "IMP_GRAND"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parentId").value("IMP_CHILD"));
+        mockMvc.perform(get("/contractor/{id}", "IMP_ORPH"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Actuator-эндпоинты, кроме health, должны быть доступны только с ролью SUPERUSER")
+    void actuatorEndpointsShouldRequireSuperuser() throws Exception {
+        mockMvc.perform(get("/actuator/contractorsearch"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/contractorsearch").with(user("user").roles("CONTRACTOR_RUS")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/contractorsearch").with(user("admin").roles("SUPERUSER")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalBytes").exists());
+
+        mockMvc.perform(get("/actuator/metrics"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/metrics").with(user("admin").roles("SUPERUSER")))
+                .andExpect(status().isOk());
+        int healthStatus = mockMvc.perform(get("/actuator/health")).andReturn().getResponse().getStatus();
+        assertThat(healthStatus).isNotIn(401, 403);
+    }
+
 }
\ No newline at end of file
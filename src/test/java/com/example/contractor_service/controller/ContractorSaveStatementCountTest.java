@@ -0,0 +1,125 @@
+package com.example.contractor_service.controller;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.testcontainers.TestContainers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+@Import(ContractorSaveStatementCountTest.StatementCountConfig.class)
+class ContractorSaveStatementCountTest extends TestContainers {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("Сохранение контрагента должно выполнять два SQL-запроса: upsert и запись в outbox")
+    void saveShouldExecuteUpsertAndOutboxInsertOnly() throws Exception {
+        Contractor contractor = new Contractor();
+        contractor.setId("STMT_COUNT");
+        contractor.setName("Statement count");
+        contractor.setCountryId("RUS");
+        contractor.setIndustryId(1);
+        contractor.setOrgFormId(1);
+
+        QueryCountHolder.clear();
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contractor)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.countryName").value("Российская Федерация"));
+        assertThat(QueryCountHolder.getGrandTotal().getTotal()).isEqualTo(2);
+
+        contractor.setName("Statement count updated");
+        QueryCountHolder.clear();
+        mockMvc.perform(put("/contractor/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(contractor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Statement count updated"));
+        assertThat(QueryCountHolder.getGrandTotal().getTotal()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Количество SQL-запросов пакетного сохранения не должно зависеть от размера пакета")
+    void bulkSaveShouldNotExecuteQueryPerContractor() throws Exception {
+        bulkSave("STMT_WARM", 1);
+
+        QueryCountHolder.clear();
+        bulkSave("STMT_A", 2);
+        long smallBatch = QueryCountHolder.getGrandTotal().getTotal();
+
+        QueryCountHolder.clear();
+        bulkSave("STMT_B", 5);
+        assertThat(QueryCountHolder.getGrandTotal().getTotal()).isEqualTo(smallBatch);
+    }
+
+    private void bulkSave(String idPrefix, int size) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            Contractor contractor = new Contractor();
+            contractor.setId(idPrefix + i);
+            contractor.setName("Bulk statement count " + i);
+            contractor.setCountryId("RUS");
+            body.append(objectMapper.writeValueAsString(contractor)).append('\n');
+        }
+        mockMvc.perform(put("/contractor/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Оборачивает DataSource приложения в прокси, подсчитывающий выполненные запросы
+     * в текущем потоке (MockMvc обрабатывает запрос в потоке теста).
+     */
+    @TestConfiguration
+    static class StatementCountConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+                        return ProxyDataSourceBuilder.create(dataSource)
+                                .name("statement-count")
+                                .countQuery()
+                                .build();
+                    }
+                    return bean;
+                }
+            };
+        }
+
+    }
+
+}
@@ -116,4 +116,33 @@ class CountryControllerTest extends TestContainers {
         assertThat(cacheManager.getCache("countries").get("all")).isNull();
     }
 
+    @Test
+    @DisplayName("Должен кэшировать страну по ID и сбрасывать только изменённую запись")
+    void testCountryByIdCaching() throws Exception {
+        Country first = new Country("PC1", "Per-id first");
+        Country second = new Country("PC2", "Per-id second");
+        for (Country country : new Country[]{first, second}) {
+            mockMvc.perform(put("/country/save")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(country)))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/country/by-ids").param("ids", "PC2", "UNKNOWN", "PC1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].id").value("PC2"))
+                .andExpect(jsonPath("$[1].id").value("PC1"));
+
+        second.setName("Per-id second updated");
+        mockMvc.perform(put("/country/save")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(second)))
+                .andExpect(status().isOk());
+
+        assertThat(cacheManager.getCache("countries_by_id").get("PC1", Country.class).getName()).isEqualTo("Per-id first");
+        assertThat(cacheManager.getCache("countries_by_id").get("PC2", Country.class).getName())
+                .isEqualTo("Per-id second updated");
+    }
+
 }
\ No newline at end of file
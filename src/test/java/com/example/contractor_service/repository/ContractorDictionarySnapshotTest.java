@@ -0,0 +1,95 @@
+package com.example.contractor_service.repository;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.Country;
+import com.example.contractor_service.service.CountryService;
+import com.example.contractor_service.testcontainers.TestContainers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class ContractorDictionarySnapshotTest extends TestContainers {
+
+    @Autowired
+    private ContractorRepository contractorRepository;
+
+    @Autowired
+    private DictionarySnapshotRepository dictionarySnapshotRepository;
+
+    @Autowired
+    private CountryService countryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Наименования из снимка справочников должны совпадать с результатом JOIN")
+    void enrichedContractorShouldMatchJoinedRow() {
+        contractorRepository.save(contractor("SNAP_JOIN", "RUS", 1, 2));
+
+        Contractor contractor = contractorRepository.findById("SNAP_JOIN").orElseThrow();
+        Map<String, Object> joined = jdbcTemplate.queryForMap("SELECT co.name AS country_name, i.name AS industry_name, " +
+                "o.name AS org_form_name FROM contractor c " +
+                "LEFT JOIN country co ON c.country = co.id " +
+                "LEFT JOIN industry i ON c.industry = i.id " +
+                "LEFT JOIN org_form o ON c.org_form = o.id " +
+                "WHERE c.id = ?", "SNAP_JOIN");
+
+        assertThat(contractor.getCountryName()).isEqualTo(joined.get("country_name"));
+        assertThat(contractor.getIndustryName()).isEqualTo(joined.get("industry_name"));
+        assertThat(contractor.getOrgFormName()).isEqualTo(joined.get("org_form_name"));
+    }
+
+    @Test
+    @DisplayName("Фильтры по наименованию страны и орг. формы должны работать через наборы ID")
+    void nameFiltersShouldResolveToIdSets() {
+        contractorRepository.save(contractor("SNAP_FILTER", "RUS", 1, 2));
+
+        List<Contractor> byCountry = contractorRepository.search(Map.of("country", "РОССИЙСКАЯ"), 0, 100);
+        List<Contractor> byOrgForm = contractorRepository.search(Map.of("org_form", "некоммерческая"), 0, 100);
+        List<Contractor> unknown = contractorRepository.search(Map.of("country", "нет такой страны"), 0, 100);
+
+        assertThat(byCountry).extracting(Contractor::getId).contains("SNAP_FILTER");
+        assertThat(byOrgForm).extracting(Contractor::getId).contains("SNAP_FILTER");
+        assertThat(unknown).isEmpty();
+        assertThat(contractorRepository.countSearch(Map.of("country", "нет такой страны"))).isZero();
+    }
+
+    @Test
+    @DisplayName("Изменение справочника должно приводить к загрузке новой версии снимка")
+    void dictionaryChangeShouldRefreshSnapshot() {
+        countryService.save(new Country("SNP", "Snapshot country"));
+        contractorRepository.save(contractor("SNAP_REFRESH", "SNP", null, null));
+        long version = dictionarySnapshotRepository.current().getVersion();
+        assertThat(contractorRepository.findById("SNAP_REFRESH").orElseThrow().getCountryName()).isEqualTo("Snapshot country");
+
+        countryService.save(new Country("SNP", "Snapshot country renamed"));
+
+        assertThat(contractorRepository.findById("SNAP_REFRESH").orElseThrow().getCountryName())
+                .isEqualTo("Snapshot country renamed");
+        assertThat(dictionarySnapshotRepository.current().getVersion()).isGreaterThan(version);
+    }
+
+    private static Contractor contractor(String id, String countryId, Integer industryId, Integer orgFormId) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setName("Snapshot " + id);
+        contractor.setCountryId(countryId);
+        contractor.setIndustryId(industryId);
+        contractor.setOrgFormId(orgFormId);
+        return contractor;
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.example.contractor_service.repository;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.testcontainers.TestContainers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class ContractorSearchPlanTest extends TestContainers {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContractorRepository contractorRepository;
+
+    @Test
+    @DisplayName("Фильтр contractor_search должен обслуживаться trigram-индексами")
+    void contractorSearchShouldUseTrigramIndexes() {
+        String sql = "EXPLAIN SELECT c.id FROM contractor c WHERE c.is_active = TRUE AND "
+                + ContractorRepository.CONTRACTOR_SEARCH_PREDICATE;
+
+        // В тестовой таблице мало строк, и планировщик предпочёл бы seq scan по стоимости.
+        // С enable_seqscan = off он выберет индекс, только если тот действительно применим к предикату.
+        List<String> plan = jdbcTemplate.execute((ConnectionCallback<List<String>>) connection -> {
+            List<String> lines = new ArrayList<>();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                try (PreparedStatement explain = connection.prepareStatement(sql)) {
+                    for (int i = 1; i <= 4; i++) {
+                        explain.setString(i, "%ромашка%");
+                    }
+                    try (ResultSet rs = explain.executeQuery()) {
+                        while (rs.next()) {
+                            lines.add(rs.getString(1));
+                        }
+                    }
+                } finally {
+                    statement.execute("RESET enable_seqscan");
+                }
+            }
+            return lines;
+        });
+
+        String planText = String.join("\n", plan);
+        assertThat(planText)
+                .contains("idx_contractor_name_trgm")
+                .contains("idx_contractor_name_full_trgm")
+                .contains("idx_contractor_inn_trgm")
+                .contains("idx_contractor_ogrn_trgm")
+                .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("Keyset-выборка в побайтовом порядке должна совпадать с порядком String.compareTo независимо от локали базы")
+    void binaryOrderSearchAfterShouldMatchJavaStringOrder() {
+        List<String> ids = List.of("ORD_a", "ORD_B", "ORD_1", "ORD__", "ORD_Z", "ORD_b");
+        for (String id : ids) {
+            jdbcTemplate.update("INSERT INTO contractor (id, name) VALUES (?, 'Collation order')", id);
+        }
+        List<String> javaOrder = new ArrayList<>(ids);
+        javaOrder.sort(Comparator.naturalOrder());
+
+        Map<String, String> filters = Map.of("contractor_search", "Collation order");
+        List<String> afterCursor = contractorRepository.searchAfter(filters, "ORD_Z", true, 10).stream()
+                .map(Contractor::getId)
+                .toList();
+        assertThat(afterCursor).isEqualTo(javaOrder.subList(javaOrder.indexOf("ORD_Z") + 1, javaOrder.size()));
+
+        List<String> fromStart = contractorRepository.searchAfter(filters, "", true, 10).stream()
+                .map(Contractor::getId)
+                .toList();
+        assertThat(fromStart).isEqualTo(javaOrder);
+    }
+
+}
@@ -0,0 +1,206 @@
+package com.example.contractor_service.service.cache;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.service.ContractorService;
+import com.example.contractor_service.testcontainers.TestContainers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class ContractorCacheTest extends TestContainers {
+
+    @Autowired
+    private ContractorService contractorService;
+
+    @Autowired
+    private ContractorCache contractorCache;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("Повторное чтение должно обслуживаться кешем, а сохранение — сбрасывать запись")
+    void readShouldBeServedFromCacheAndSaveShouldUpdateIt() {
+        Contractor contractor = contractor("CACHE_READ", "Cached name");
+        contractorService.save(contractor);
+        // Пока жива метка сброса, оставленная сохранением, чтение не заполняет кеш.
+        stringRedisTemplate.delete(ContractorCache.KEY_PREFIX + "CACHE_READ");
+        assertThat(contractorService.findById("CACHE_READ")).map(Contractor::getName).contains("Cached name");
+
+        // Изменение в обход сервиса не видно, пока запись жива в кеше.
+        jdbcTemplate.update("UPDATE contractor SET name = 'Changed in database' WHERE id = 'CACHE_READ'");
+        Optional<Contractor> cached = contractorService.findById("CACHE_READ");
+        assertThat(cached).map(Contractor::getName).contains("Cached name");
+        assertThat(cached).map(Contractor::getCountryName).contains("Российская Федерация");
+
+        contractor.setName("Saved through service");
+        contractorService.save(contractor);
+        assertThat(stringRedisTemplate.opsForValue().get(ContractorCache.KEY_PREFIX + "CACHE_READ")).isEqualTo(ContractorCache.EVICTED);
+        assertThat(contractorService.findById("CACHE_READ")).map(Contractor::getName).contains("Saved through service");
+    }
+
+    @Test
+    @DisplayName("Отсутствующий ID должен кешироваться меткой, а сохранение — заменять её")
+    void missingIdShouldBeNegativelyCached() {
+        assertThat(contractorService.findById("CACHE_MISS")).isEmpty();
+        assertThat(stringRedisTemplate.opsForValue().get(ContractorCache.KEY_PREFIX + "CACHE_MISS")).isEmpty();
+
+        jdbcTemplate.update("INSERT INTO contractor (id, name, create_date, modify_date, is_active) " +
+                "VALUES ('CACHE_MISS', 'Inserted directly', NOW(), NOW(), TRUE)");
+        assertThat(contractorService.findById("CACHE_MISS")).isEmpty();
+
+        contractorService.save(contractor("CACHE_MISS", "Saved through service"));
+        assertThat(contractorService.findById("CACHE_MISS")).map(Contractor::getName).contains("Saved through service");
+    }
+
+    @Test
+    @DisplayName("Удаление должно сбрасывать только запись удалённого контрагента")
+    void deleteShouldEvictOnlyDeletedContractor() {
+        contractorService.save(contractor("CACHE_DEL_1", "First"));
+        contractorService.save(contractor("CACHE_DEL_2", "Second"));
+
+        contractorService.delete("CACHE_DEL_1");
+
+        assertThat(stringRedisTemplate.opsForValue().get(ContractorCache.KEY_PREFIX + "CACHE_DEL_1")).isEqualTo(ContractorCache.EVICTED);
+        assertThat(stringRedisTemplate.hasKey(ContractorCache.KEY_PREFIX + "CACHE_DEL_2")).isTrue();
+        assertThat(contractorService.findById("CACHE_DEL_1")).map(Contractor::getIsActive).contains(false);
+    }
+
+    @Test
+    @DisplayName("Импорт должен после фиксации сбрасывать записи затронутых контрагентов")
+    void importShouldEvictChangedContractors() {
+        contractorService.save(contractor("CACHE_IMP", "Before import"));
+        stringRedisTemplate.delete(ContractorCache.KEY_PREFIX + "CACHE_IMP");
+        assertThat(contractorService.findById("CACHE_IMP")).map(Contractor::getName).contains("Before import");
+
+        String csv = "id;parent_id;name;name_full;inn;ogrn;country;industry;org_form\n"
+                + "CACHE_IMP;;After import;;;;RUS;1;1\n";
+        contractorService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), null);
+
+        assertThat(stringRedisTemplate.opsForValue().get(ContractorCache.KEY_PREFIX + "CACHE_IMP")).isEqualTo(ContractorCache.EVICTED);
+        assertThat(contractorService.findById("CACHE_IMP")).map(Contractor::getName).contains("After import");
+    }
+
+    @Test
+    @DisplayName("Одновременные промахи по одному ID должны загружать контрагента один раз")
+    void concurrentMissesShouldLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Optional<Contractor>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return contractorCache.get("CACHE_HOT", id -> {
+                        loads.incrementAndGet();
+                        try {
+                            Thread.sleep(300);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return Optional.of(contractor(id, "Hot contractor"));
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<Optional<Contractor>> result : results) {
+                assertThat(result.get()).map(Contractor::getName).contains("Hot contractor");
+            }
+        }
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Загрузка, прочитавшая строку до сохранения, не должна затирать сохранённое значение")
+    void slowLoadShouldNotOverwriteSave() throws Exception {
+        contractorService.save(contractor("CACHE_RACE_S", "Old"));
+        stringRedisTemplate.delete(ContractorCache.KEY_PREFIX + "CACHE_RACE_S");
+
+        Future<Optional<Contractor>> load = slowLoad("CACHE_RACE_S",
+                () -> contractorService.save(contractor("CACHE_RACE_S", "New")));
+
+        assertThat(load.get()).map(Contractor::getName).contains("Old");
+        assertThat(contractorService.findById("CACHE_RACE_S")).map(Contractor::getName).contains("New");
+    }
+
+    @Test
+    @DisplayName("Загрузка, прочитавшая строку до удаления, не должна возвращать в кеш удалённого контрагента")
+    void slowLoadShouldNotOverwriteDelete() throws Exception {
+        contractorService.save(contractor("CACHE_RACE_D", "Deleted"));
+        stringRedisTemplate.delete(ContractorCache.KEY_PREFIX + "CACHE_RACE_D");
+
+        Future<Optional<Contractor>> load = slowLoad("CACHE_RACE_D", () -> contractorService.delete("CACHE_RACE_D"));
+
+        assertThat(load.get()).map(Contractor::getIsActive).contains(true);
+        assertThat(contractorService.findById("CACHE_RACE_D")).map(Contractor::getIsActive).contains(false);
+    }
+
+    /**
+     * Запускает загрузку через кеш, которая читает контрагента из базы, затем ждёт,
+     * пока в основном потоке выполнится {@code change}, и только потом возвращает прочитанное.
+     */
+    private Future<Optional<Contractor>> slowLoad(String id, Runnable change) throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch changed = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<Contractor>> load = executor.submit(() -> contractorCache.get(id, key -> {
+                Optional<Contractor> stale = Optional.ofNullable(jdbcTemplate.queryForObject(
+                        "SELECT name, is_active FROM contractor WHERE id = ?", (rs, rowNum) -> {
+                            Contractor contractor = contractor(key, rs.getString("name"));
+                            contractor.setIsActive(rs.getBoolean("is_active"));
+                            return contractor;
+                        }, key));
+                loaded.countDown();
+                try {
+                    changed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return stale;
+            }));
+            loaded.await();
+            change.run();
+            changed.countDown();
+            load.get();
+            return load;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Contractor contractor(String id, String name) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setName(name);
+        contractor.setCountryId("RUS");
+        contractor.setIndustryId(1);
+        contractor.setOrgFormId(1);
+        return contractor;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.example.contractor_service.service.outbox;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.testcontainers.TestContainers;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "outbox.compaction.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class OutboxMessageServiceTest extends TestContainers {
+
+    private static final int UPDATES = 20;
+
+    @Autowired
+    private OutboxMessageService outboxMessageService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void clearOutbox() {
+        jdbcTemplate.update("DELETE FROM outbox_messages");
+    }
+
+    @Test
+    @DisplayName("Серия изменений контрагента должна оставлять одно ожидающее сообщение с последним состоянием")
+    void burstOfUpdatesShouldBeCoalesced() {
+        double compactedBefore = compactedCount();
+        for (int i = 0; i < UPDATES; i++) {
+            outboxMessageService.saveContractor(contractor("BURST1", "Version " + i));
+        }
+
+        List<String> payloads = pendingPayloads("BURST1");
+        assertThat(payloads).hasSize(1);
+        assertThat(payloads.get(0)).contains("Version " + (UPDATES - 1));
+        assertThat(compactedCount() - compactedBefore).isEqualTo(UPDATES - 1);
+    }
+
+    @Test
+    @DisplayName("Изменение после отправки сообщения должно добавлять новое сообщение")
+    void updateAfterDispatchShouldBeQueuedSeparately() {
+        outboxMessageService.saveContractor(contractor("BURST2", "Sent"));
+        jdbcTemplate.update("UPDATE outbox_messages SET status = 'SENT' WHERE contractor_id = 'BURST2'");
+
+        outboxMessageService.saveContractor(contractor("BURST2", "Next"));
+
+        List<String> payloads = pendingPayloads("BURST2");
+        assertThat(payloads).hasSize(1);
+        assertThat(payloads.get(0)).contains("Next");
+        Integer total = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_messages WHERE contractor_id = 'BURST2'", Integer.class);
+        assertThat(total).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Пакетная запись должна уплотнять сообщения так же, как одиночная")
+    void batchShouldBeCoalesced() {
+        List<Contractor> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(contractor("BATCH" + i, "First"));
+        }
+        outboxMessageService.saveContractors(batch);
+        batch.forEach(contractor -> contractor.setName("Second"));
+        outboxMessageService.saveContractors(batch);
+
+        for (int i = 0; i < 5; i++) {
+            List<String> payloads = pendingPayloads("BATCH" + i);
+            assertThat(payloads).hasSize(1);
+            assertThat(payloads.get(0)).contains("Second");
+        }
+    }
+
+    private Contractor contractor(String id, String name) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setName(name);
+        return contractor;
+    }
+
+    private List<String> pendingPayloads(String contractorId) {
+        return jdbcTemplate.queryForList("SELECT payload FROM outbox_messages WHERE contractor_id = ? AND status = 'PENDING'",
+                String.class, contractorId);
+    }
+
+    private double compactedCount() {
+        return meterRegistry.counter("outbox.compacted").count();
+    }
+
+}
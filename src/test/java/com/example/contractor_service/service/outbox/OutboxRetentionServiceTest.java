@@ -0,0 +1,59 @@
+package com.example.contractor_service.service.outbox;
+
+import com.example.contractor_service.testcontainers.TestContainers;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {"outbox.retention.max-age=1d", "outbox.retention.batch-size=7"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class OutboxRetentionServiceTest extends TestContainers {
+
+    @Autowired
+    private OutboxRetentionService outboxRetentionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Очистка должна порциями удалять только старые отправленные сообщения")
+    void purgeShouldDeleteOnlyOldSentMessages() {
+        insert(20, "SENT", "NOW() - INTERVAL '2 days'");
+        insert(3, "SENT", "NOW()");
+        insert(4, "PENDING", "NOW() - INTERVAL '2 days'");
+        insert(2, "DEAD_LETTER", "NOW() - INTERVAL '2 days'");
+
+        long purged = outboxRetentionService.purge();
+
+        assertThat(purged).isEqualTo(20);
+        assertThat(count("SENT")).isEqualTo(3);
+        assertThat(count("PENDING")).isEqualTo(4);
+        assertThat(count("DEAD_LETTER")).isEqualTo(2);
+        assertThat(meterRegistry.get("outbox.retention.purged").counter().count()).isEqualTo(20);
+        assertThat(meterRegistry.get("outbox.table.size").gauge().value()).isPositive();
+    }
+
+    private void insert(int count, String status, String sentAt) {
+        jdbcTemplate.update("INSERT INTO outbox_messages (message_id, contractor_id, payload, status, sent_at) " +
+                "SELECT gen_random_uuid(), 'RET' || g, '{}', ?, " + sentAt + " FROM generate_series(1, ?) g", status, count);
+    }
+
+    private int count(String status) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_messages WHERE status = ?", Integer.class, status);
+        return count != null ? count : 0;
+    }
+
+}
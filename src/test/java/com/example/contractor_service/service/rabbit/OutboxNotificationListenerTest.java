@@ -0,0 +1,51 @@
+package com.example.contractor_service.service.rabbit;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.service.outbox.OutboxMessageService;
+import com.example.contractor_service.testcontainers.TestContainers;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = "outbox.listen.enabled=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class OutboxNotificationListenerTest extends TestContainers {
+
+    @Autowired
+    private OutboxMessageService outboxMessageService;
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @Test
+    @DisplayName("Сообщение outbox должно отправляться по NOTIFY без ожидания опроса по расписанию")
+    void messageShouldBeSentOnNotify() {
+        Contractor contractor = new Contractor();
+        contractor.setId("NOTIFY1");
+        contractor.setName("Notify");
+
+        outboxMessageService.saveContractor(contractor);
+
+        // Опрос по расписанию в тестовом профиле отключён, отправить сообщение может только слушатель.
+        verify(rabbitTemplate, timeout(5000)).send(any(), any(),
+                argThat(sent -> new String(sent.getBody(), StandardCharsets.UTF_8).contains("\"NOTIFY1\"")),
+                any(CorrelationData.class));
+    }
+
+}
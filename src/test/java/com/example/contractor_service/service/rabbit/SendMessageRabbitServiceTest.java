@@ -0,0 +1,402 @@
+package com.example.contractor_service.service.rabbit;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.outbox.MessageStatus;
+import com.example.contractor_service.model.outbox.OutboxMessage;
+import com.example.contractor_service.repository.OutboxJdbcRepository;
+import com.example.contractor_service.service.outbox.OutboxMessageService;
+import com.example.contractor_service.testcontainers.TestContainers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "outbox.dispatcher.batch-size=50",
+        "outbox.dispatcher.max-attempts=" + SendMessageRabbitServiceTest.MAX_ATTEMPTS,
+        "outbox.dispatcher.lanes=" + SendMessageRabbitServiceTest.LANES,
+        "outbox.dispatcher.routing.partitioned=true"
+})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_CLASS)
+class SendMessageRabbitServiceTest extends TestContainers {
+
+    private static final int MESSAGES = 1000;
+    private static final int DISPATCHERS = 4;
+    static final int MAX_ATTEMPTS = 3;
+    static final int LANES = 4;
+
+    @Autowired
+    private SendMessageRabbitService sendMessageRabbitService;
+
+    @Autowired
+    private OutboxJdbcRepository outboxJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OutboxMessageService outboxMessageService;
+
+    @Autowired
+    private Jackson2JsonMessageConverter messageConverter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockitoBean
+    private RabbitTemplate rabbitTemplate;
+
+    @BeforeEach
+    void clearOutbox() {
+        jdbcTemplate.update("DELETE FROM outbox_messages");
+    }
+
+    @Test
+    @DisplayName("Параллельные диспетчеры должны отправить каждое сообщение outbox ровно один раз")
+    void concurrentDispatchersShouldSendEachMessageOnce() throws Exception {
+        List<OutboxMessage> messages = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            Contractor contractor = new Contractor();
+            contractor.setId("OUTBOX" + i);
+            contractor.setName("Outbox " + i);
+            messages.add(pending(contractor));
+        }
+        outboxJdbcRepository.insertBatchAndNotify(messages);
+
+        Queue<String> sentIds = new ConcurrentLinkedQueue<>();
+        doAnswer(invocation -> {
+            sentIds.add(contractorId(invocation.getArgument(2)));
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        // Диспетчеры стартуют одновременно, имитируя несколько экземпляров сервиса.
+        ExecutorService executor = Executors.newFixedThreadPool(DISPATCHERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < DISPATCHERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    sendMessageRabbitService.sendUpdatedContractor();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sentIds).hasSize(MESSAGES);
+        assertThat(new HashSet<>(sentIds)).hasSize(MESSAGES);
+
+        Integer pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_messages WHERE status = 'PENDING'", Integer.class);
+        Integer sent = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_messages WHERE status = 'SENT'", Integer.class);
+        assertThat(pending).isZero();
+        assertThat(sent).isEqualTo(MESSAGES);
+        assertThat(meterRegistry.get("outbox.publish.latency").timer().count()).isGreaterThanOrEqualTo(MESSAGES);
+    }
+
+    @Test
+    @DisplayName("Сообщения, отклонённые брокером, должны остаться в статусе PENDING с отложенной повторной попыткой")
+    void nackedMessagesShouldStayPending() throws Exception {
+        List<OutboxMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Contractor contractor = new Contractor();
+            contractor.setId("NACK" + i);
+            messages.add(pending(contractor));
+        }
+        outboxJdbcRepository.insertBatchAndNotify(messages);
+
+        doAnswer(invocation -> {
+            int number = Integer.parseInt(contractorId(invocation.getArgument(2)).substring(4));
+            boolean ack = number % 2 == 1;
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(ack, ack ? null : "nack"));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        sendMessageRabbitService.sendUpdatedContractor();
+
+        Integer pending = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_messages WHERE status = 'PENDING'", Integer.class);
+        Integer sent = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM outbox_messages WHERE status = 'SENT'", Integer.class);
+        assertThat(pending).isEqualTo(5);
+        assertThat(sent).isEqualTo(5);
+
+        Integer delayed = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_messages " +
+                "WHERE status = 'PENDING' AND attempts = 1 AND next_attempt_at IS NOT NULL AND last_error LIKE '%nack%'", Integer.class);
+        assertThat(delayed).isEqualTo(5);
+    }
+
+    @Test
+    @DisplayName("Сообщение должно переходить в DEAD_LETTER после исчерпания попыток и возвращаться в очередь по запросу")
+    void exhaustedMessageShouldBeDeadLetteredAndReplayed() throws Exception {
+        Contractor contractor = new Contractor();
+        contractor.setId("DEAD1");
+        outboxJdbcRepository.insertBatchAndNotify(List.of(pending(contractor)));
+        doThrow(new AmqpConnectException(new IOException("broker is down")))
+                .when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            sendMessageRabbitService.sendUpdatedContractor();
+            // Пропускаем паузу перед следующей попыткой.
+            jdbcTemplate.update("UPDATE outbox_messages SET next_attempt_at = NOW() - INTERVAL '1 second'");
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM outbox_messages", String.class)).isEqualTo("DEAD_LETTER");
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM outbox_messages", Integer.class)).isEqualTo(MAX_ATTEMPTS);
+
+        sendMessageRabbitService.sendUpdatedContractor();
+        verify(rabbitTemplate, times(MAX_ATTEMPTS)).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        assertThat(outboxMessageService.replayDeadLetters(null)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM outbox_messages", String.class)).isEqualTo("PENDING");
+        assertThat(jdbcTemplate.queryForObject("SELECT attempts FROM outbox_messages", Integer.class)).isZero();
+    }
+
+    @Test
+    @DisplayName("Возврат в очередь не должен отправлять сообщение из DEAD_LETTER после более нового сообщения контрагента")
+    void replayShouldSupersedeDeadLetterWithNewerMessage() throws Exception {
+        outboxJdbcRepository.insertBatchAndNotify(List.of(pending(named("DEAD2", "Old"))));
+        jdbcTemplate.update("UPDATE outbox_messages SET status = 'DEAD_LETTER', attempts = ? WHERE contractor_id = 'DEAD2'", MAX_ATTEMPTS);
+        outboxJdbcRepository.insertBatchAndNotify(List.of(pending(named("DEAD2", "New"))));
+        outboxJdbcRepository.insertBatchAndNotify(List.of(pending(named("DEAD3", "Only"))));
+        jdbcTemplate.update("UPDATE outbox_messages SET status = 'DEAD_LETTER', attempts = ? WHERE contractor_id = 'DEAD3'", MAX_ATTEMPTS);
+
+        List<String> sentNames = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            sentNames.add(objectMapper.readValue(invocation.<Message>getArgument(2).getBody(), Contractor.class).getName());
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        sendMessageRabbitService.sendUpdatedContractor();
+        assertThat(sentNames).containsExactly("New");
+
+        assertThat(outboxMessageService.replayDeadLetters(null)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM outbox_messages WHERE contractor_id = 'DEAD2' " +
+                "AND payload LIKE '%Old%'", String.class)).isEqualTo("SUPERSEDED");
+
+        sendMessageRabbitService.sendUpdatedContractor();
+        assertThat(sentNames).containsExactly("New", "Only");
+    }
+
+    @Test
+    @DisplayName("Сообщения одного контрагента должны отправляться по порядку с ключом маршрутизации его партиции")
+    void messagesShouldKeepPerContractorOrderAndPartitionRoutingKey() throws Exception {
+        int contractors = 6;
+        int versions = 5;
+        for (int version = 0; version < versions; version++) {
+            for (int i = 0; i < contractors; i++) {
+                Contractor contractor = new Contractor();
+                contractor.setId("ORDER" + i);
+                contractor.setName(String.valueOf(version));
+                // Каждая версия записывается отдельной транзакцией, как при последовательных сохранениях.
+                outboxJdbcRepository.insertBatchAndNotify(List.of(pending(contractor)));
+            }
+        }
+
+        Map<String, List<String>> versionsById = new ConcurrentHashMap<>();
+        Map<String, String> routingKeys = new ConcurrentHashMap<>();
+        when(rabbitTemplate.getRoutingKey()).thenReturn("contractor.update");
+        doAnswer(invocation -> {
+            Contractor sent = objectMapper.readValue(invocation.<Message>getArgument(2).getBody(), Contractor.class);
+            versionsById.computeIfAbsent(sent.getId(), key -> Collections.synchronizedList(new ArrayList<>())).add(sent.getName());
+            routingKeys.put(sent.getId(), invocation.getArgument(1));
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        sendMessageRabbitService.sendUpdatedContractor();
+
+        assertThat(versionsById).hasSize(contractors);
+        for (int i = 0; i < contractors; i++) {
+            String id = "ORDER" + i;
+            assertThat(versionsById.get(id)).containsExactly("0", "1", "2", "3", "4");
+            assertThat(routingKeys.get(id)).isEqualTo("contractor.update." + Math.floorMod(id.hashCode(), LANES));
+        }
+    }
+
+    @Test
+    @DisplayName("Порядок сообщений контрагента должен определяться порядком записи, а не временем начала транзакции")
+    void overlappingTransactionsShouldKeepCommitOrder() throws Exception {
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        outer.executeWithoutResult(status -> {
+            // Внешняя транзакция начинается раньше, а пишет сообщение позже вложенной.
+            jdbcTemplate.queryForObject("SELECT NOW()", Timestamp.class);
+            inner.executeWithoutResult(innerStatus -> outboxMessageService.saveContractor(named("SEQ1", "First")));
+            outboxMessageService.saveContractor(named("SEQ1", "Second"));
+            // Внутри одной транзакции NOW() одинаково у всех сообщений.
+            outboxMessageService.saveContractor(named("SEQ2", "First"));
+            outboxMessageService.saveContractor(named("SEQ2", "Second"));
+        });
+        Boolean startedEarlier = jdbcTemplate.queryForObject("SELECT (SELECT sent_at FROM outbox_messages WHERE payload LIKE '%Second%' " +
+                "AND contractor_id = 'SEQ1') < (SELECT sent_at FROM outbox_messages WHERE payload LIKE '%First%' AND contractor_id = 'SEQ1')",
+                Boolean.class);
+        assertThat(startedEarlier).isTrue();
+
+        Map<String, List<String>> versionsById = new ConcurrentHashMap<>();
+        doAnswer(invocation -> {
+            Contractor sent = objectMapper.readValue(invocation.<Message>getArgument(2).getBody(), Contractor.class);
+            versionsById.computeIfAbsent(sent.getId(), key -> Collections.synchronizedList(new ArrayList<>())).add(sent.getName());
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        sendMessageRabbitService.sendUpdatedContractor();
+
+        assertThat(versionsById.get("SEQ1")).containsExactly("First", "Second");
+        assertThat(versionsById.get("SEQ2")).containsExactly("First", "Second");
+    }
+
+    @Test
+    @DisplayName("Отправка не должна держать блокировки outbox, а захваченное сообщение — меняться или достаться другому диспетчеру")
+    void publishShouldRunOutsideClaimTransaction() throws Exception {
+        outboxJdbcRepository.insertBatchAndNotify(List.of(pending(named("LEASE1", "Leased"))));
+        String newer = payload(named("LEASE1", "Newer"));
+
+        List<String> sentNames = Collections.synchronizedList(new ArrayList<>());
+        List<Boolean> duringSend = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            String name = objectMapper.readValue(invocation.<Message>getArgument(2).getBody(), Contractor.class).getName();
+            sentNames.add(name);
+            if (sentNames.size() == 1) {
+                // Проверки выполняются в другом потоке, то есть в другом соединении с базой.
+                CompletableFuture.runAsync(() -> {
+                    duringSend.add(!jdbcTemplate.queryForList("SELECT message_id FROM outbox_messages " +
+                            "WHERE contractor_id = 'LEASE1' FOR UPDATE NOWAIT").isEmpty());
+                    duringSend.add(outboxJdbcRepository.claimPending(10, Duration.ofMinutes(1)).isEmpty());
+                    duringSend.add(outboxJdbcRepository.coalesce(UUID.randomUUID(), "LEASE1", newer));
+                }).join();
+            }
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        sendMessageRabbitService.sendUpdatedContractor();
+
+        // Строка не заблокирована, повторно не захватывается, а новая версия добавлена отдельным сообщением.
+        assertThat(duringSend).containsExactly(true, true, false);
+        assertThat(sentNames).containsExactly("Leased", "Newer");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_messages WHERE status = 'SENT'", Integer.class))
+                .isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Payload outbox должен отправляться без повторной сериализации в формате конвертера по умолчанию")
+    void payloadShouldBeSentAsIs() throws Exception {
+        Contractor contractor = new Contractor();
+        contractor.setId("RAW1");
+        contractor.setName("Raw");
+        contractor.setCreateDate(LocalDateTime.of(2025, 3, 4, 5, 6, 7, 123456000));
+        contractor.setModifyDate(LocalDateTime.of(2025, 3, 4, 5, 6));
+        outboxMessageService.saveContractor(contractor);
+
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        doAnswer(invocation -> {
+            invocation.<CorrelationData>getArgument(3).getFuture().complete(new CorrelationData.Confirm(true, null));
+            return null;
+        }).when(rabbitTemplate).send(any(), any(), any(Message.class), any(CorrelationData.class));
+
+        sendMessageRabbitService.sendUpdatedContractor();
+
+        verify(rabbitTemplate).send(any(), any(), captor.capture(), any(CorrelationData.class));
+        Message message = captor.getValue();
+        // Эталон — конвертер в исходной конфигурации, без маппера приложения.
+        Message expected = new Jackson2JsonMessageConverter().toMessage(contractor, new MessageProperties());
+        assertThat(new String(message.getBody(), StandardCharsets.UTF_8))
+                .isEqualTo(new String(expected.getBody(), StandardCharsets.UTF_8))
+                .contains("\"createDate\":[2025,3,4,5,6,7,123456000]");
+        assertThat(message.getMessageProperties().getContentType()).isEqualTo(expected.getMessageProperties().getContentType());
+        assertThat(message.getMessageProperties().getContentEncoding()).isEqualTo(expected.getMessageProperties().getContentEncoding());
+        assertThat(message.getMessageProperties().getHeaders()).isEqualTo(expected.getMessageProperties().getHeaders());
+        assertThat(message.getMessageProperties().getMessageId()).isNotNull();
+        assertThat(((Contractor) messageConverter.fromMessage(message)).getCreateDate()).isEqualTo(contractor.getCreateDate());
+    }
+
+    private OutboxMessage pending(Contractor contractor) throws IOException {
+        return OutboxMessage.builder()
+                .contractorId(contractor.getId())
+                .payload(payload(contractor))
+                .status(MessageStatus.PENDING)
+                .build();
+    }
+
+    private String payload(Contractor contractor) throws IOException {
+        return objectMapper.writeValueAsString(contractor);
+    }
+
+    private Contractor named(String id, String name) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setName(name);
+        return contractor;
+    }
+
+    private String contractorId(Message message) throws IOException {
+        return objectMapper.readValue(message.getBody(), Contractor.class).getId();
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.example.contractor_service.service.search;
+
+import com.example.contractor_service.model.Contractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContractorFilterIndexTest {
+
+    private ContractorFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = ContractorFilterIndex.build(List.of(
+                contractor("F3", "KAZ", 2, 1),
+                contractor("F1", "RUS", 1, 1),
+                contractor("F2", "RUS", 2, 2),
+                contractor("F4", null, null, null)));
+    }
+
+    @Test
+    @DisplayName("Без условий должны возвращаться все активные контрагенты по возрастанию ID")
+    void noFiltersShouldReturnAllSorted() {
+        assertThat(ids(null, null, null)).containsExactly("F1", "F2", "F3", "F4");
+    }
+
+    @Test
+    @DisplayName("Каждый фильтр по отдельности должен отбирать контрагентов со своим значением")
+    void eachFilterShouldSelectMatchingContractors() {
+        assertThat(ids(Set.of("RUS"), null, null)).containsExactly("F1", "F2");
+        assertThat(ids(Set.of("RUS", "KAZ"), null, null)).containsExactly("F1", "F2", "F3");
+        assertThat(ids(null, 2, null)).containsExactly("F2", "F3");
+        assertThat(ids(null, null, Set.of(1))).containsExactly("F1", "F3");
+    }
+
+    @Test
+    @DisplayName("Несколько фильтров должны пересекаться, а пустой набор значений — ничего не находить")
+    void filtersShouldBeCombined() {
+        assertThat(ids(Set.of("RUS"), 2, null)).containsExactly("F2");
+        assertThat(ids(Set.of("RUS", "KAZ"), 2, Set.of(1))).containsExactly("F3");
+        assertThat(ids(Set.of("RUS"), 2, Set.of(1))).isEmpty();
+        assertThat(ids(Set.of(), null, null)).isEmpty();
+        assertThat(ids(null, 99, null)).isEmpty();
+        assertThat(index.match(Set.of("RUS"), null, null).getCardinality()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Изменение контрагента должно переносить его в битмапы новых значений")
+    void putShouldMoveContractorBetweenBitmaps() {
+        index.put(contractor("F1", "KAZ", 2, 2));
+
+        assertThat(ids(Set.of("RUS"), null, null)).containsExactly("F2");
+        assertThat(ids(Set.of("KAZ"), 2, Set.of(2))).containsExactly("F1");
+        assertThat(ids(null, 1, null)).isEmpty();
+        assertThat(index.memoryUsage()).doesNotContainKey("industry:1");
+    }
+
+    @Test
+    @DisplayName("Удаление должно исключать контрагента из всех битмапов, а повторное сохранение — возвращать")
+    void removeAndReactivateShouldKeepBitmapsInSync() {
+        index.remove("F2");
+        index.remove("UNKNOWN");
+
+        assertThat(ids(null, null, null)).containsExactly("F1", "F3", "F4");
+        assertThat(ids(null, null, Set.of(2))).isEmpty();
+        assertThat(index.contains(index.match(null, null, null), "F2")).isFalse();
+
+        index.put(contractor("F2", "RUS", 1, 2));
+
+        assertThat(ids(Set.of("RUS"), 1, null)).containsExactly("F1", "F2");
+        assertThat(index.contains(index.match(null, null, Set.of(2)), "F2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Новый контрагент с меньшим ID не должен нарушать порядок результата")
+    void newSmallerIdShouldKeepResultSorted() {
+        index.put(contractor("F0", "RUS", 1, 1));
+
+        assertThat(ids(null, null, null)).containsExactly("F0", "F1", "F2", "F3", "F4");
+        assertThat(ids(Set.of("RUS"), 1, null)).containsExactly("F0", "F1");
+    }
+
+    private List<String> ids(Set<String> countryIds, Integer industryId, Set<Integer> orgFormIds) {
+        RoaringBitmap matched = index.match(countryIds, industryId, orgFormIds);
+        return index.ids(matched);
+    }
+
+    private static Contractor contractor(String id, String countryId, Integer industryId, Integer orgFormId) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setCountryId(countryId);
+        contractor.setIndustryId(industryId);
+        contractor.setOrgFormId(orgFormId);
+        return contractor;
+    }
+
+}
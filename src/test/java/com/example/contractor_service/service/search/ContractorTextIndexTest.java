@@ -0,0 +1,88 @@
+package com.example.contractor_service.service.search;
+
+import com.example.contractor_service.model.Contractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContractorTextIndexTest {
+
+    private ContractorTextIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ContractorTextIndex();
+        index.put(contractor("C3", "ООО Ромашка", "Общество Ромашка", "7701234567", "1027700000001"));
+        index.put(contractor("C1", "Лютик", null, "7709876543", null));
+        index.put(contractor("C2", "АО РОМАШКОВО", null, null, "1027700000002"));
+    }
+
+    @Test
+    @DisplayName("Поиск должен находить подстроку в любом поле без учёта регистра и возвращать ID по возрастанию")
+    void searchShouldMatchSubstringInAnyFieldIgnoringCase() {
+        assertThat(index.search("ромаш")).containsExactly("C2", "C3");
+        assertThat(index.search("РОМАШКА")).containsExactly("C3");
+        assertThat(index.search("98765")).containsExactly("C1");
+        assertThat(index.search("10277000000")).containsExactly("C2", "C3");
+        assertThat(index.search("одуванчик")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Все триграммы запроса должны встречаться, но кандидат перепроверяется целой подстрокой")
+    void candidatesShouldBeVerifiedBySubstring() {
+        index.put(contractor("C4", "абвг бвгд", null, null, null));
+
+        // Все триграммы запроса «абвгд» есть у C4, но самой подстроки нет.
+        assertThat(index.search("абвгд")).isEmpty();
+        assertThat(index.search("абвг бвгд")).containsExactly("C4");
+    }
+
+    @Test
+    @DisplayName("Триграммы не должны склеиваться через границу соседних полей")
+    void gramsShouldNotSpanFieldBoundaries() {
+        index.put(contractor("C5", "xy", "zw", null, null));
+
+        assertThat(index.search("xyz")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Изменение контрагента должно заменять прежний текст, а удаление — исключать его из поиска")
+    void updateAndRemoveShouldReplaceIndexedText() {
+        index.put(contractor("C3", "ООО Василёк", null, null, null));
+
+        assertThat(index.search("ромаш")).containsExactly("C2");
+        assertThat(index.search("василёк")).containsExactly("C3");
+
+        index.remove("C2");
+        index.remove("UNKNOWN");
+
+        assertThat(index.search("ромаш")).isEmpty();
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("После перестроения из-за множества удалённых версий поиск должен видеть только последние")
+    void compactionShouldKeepOnlyLiveVersions() {
+        for (int i = 0; i < 2000; i++) {
+            index.put(contractor("C1", "Версия " + i, null, null, null));
+        }
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("Версия 1999")).containsExactly("C1");
+        assertThat(index.search("Версия 1998")).isEmpty();
+        assertThat(index.search("ромаш")).containsExactly("C2", "C3");
+    }
+
+    private static Contractor contractor(String id, String name, String nameFull, String inn, String ogrn) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setName(name);
+        contractor.setNameFull(nameFull);
+        contractor.setInn(inn);
+        contractor.setOgrn(ogrn);
+        return contractor;
+    }
+
+}
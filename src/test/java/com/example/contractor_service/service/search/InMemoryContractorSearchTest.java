@@ -0,0 +1,154 @@
+package com.example.contractor_service.service.search;
+
+import com.example.contractor_service.model.Contractor;
+import com.example.contractor_service.model.Country;
+import com.example.contractor_service.model.OrgForm;
+import com.example.contractor_service.repository.ContractorRepository;
+import com.example.contractor_service.service.CountryService;
+import com.example.contractor_service.service.OrgFormService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class InMemoryContractorSearchTest {
+
+    private ContractorRepository contractorRepository;
+    private InMemoryContractorSearch search;
+
+    @BeforeEach
+    void setUp() {
+        contractorRepository = mock(ContractorRepository.class);
+        CountryService countryService = mock(CountryService.class);
+        OrgFormService orgFormService = mock(OrgFormService.class);
+        when(countryService.findAll()).thenReturn(List.of(
+                new Country("RUS", "Российская Федерация"), new Country("KAZ", "Казахстан")));
+        when(orgFormService.findAll()).thenReturn(List.of(new OrgForm(1, "ООО"), new OrgForm(2, "АО")));
+        when(contractorRepository.findAll()).thenReturn(List.of(
+                contractor("A1", "Ромашка", "RUS", 1, 1, true),
+                contractor("A2", "Ромашково", "KAZ", 2, 2, true),
+                contractor("A3", "Ромашка закрытая", "RUS", 1, 1, false),
+                contractor("B1", "Лютик", "RUS", 2, 1, true)));
+        search = new InMemoryContractorSearch(contractorRepository, countryService, orgFormService, "memory", 3);
+    }
+
+    @Test
+    @DisplayName("До построения индекса запросы должны выполняться через SQL")
+    void shouldNotServeBeforeRebuild() {
+        assertThat(search.canServe(null)).isFalse();
+
+        search.rebuild();
+
+        assertThat(search.canServe(null)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Индекс должен строиться только по активным контрагентам")
+    void rebuildShouldSkipInactiveContractors() {
+        search.rebuild();
+
+        assertThat(search.findIds(null)).containsExactly("A1", "A2", "B1");
+        assertThat(search.count(null)).isEqualTo(3);
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш"))).containsExactly("A1", "A2");
+    }
+
+    @Test
+    @DisplayName("Текстовый поиск должен сочетаться с фильтрами по справочникам")
+    void textSearchShouldBeCombinedWithFilters() {
+        search.rebuild();
+
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш", "countryId", "RUS"))).containsExactly("A1");
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш", "country", "казах"))).containsExactly("A2");
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш", "org_form", "ооо"))).containsExactly("A1");
+        assertThat(search.count(Map.of("contractor_search", "ромаш", "industry", "2"))).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Сохранение и удаление вне транзакции должны сразу отражаться в индексе")
+    void saveAndDeleteShouldUpdateIndex() {
+        search.rebuild();
+
+        search.onSaved(contractor("A0", "Ромашка новая", "KAZ", 1, 2, true));
+        search.onSaved(contractor("B1", "Ромашка бывший Лютик", "RUS", 2, 1, true));
+        search.onDeleted("A1");
+        search.onSaved(contractor("A2", "Ромашково", "KAZ", 2, 2, false));
+
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш"))).containsExactly("A0", "B1");
+        assertThat(search.findIds(Map.of("country", "казах"))).containsExactly("A0");
+        assertThat(search.findIds(Map.of("contractor_search", "лютик"))).containsExactly("B1");
+        assertThat(search.count(null)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Перестроение должно заменять индекс текущими данными из базы")
+    void rebuildShouldReplaceIndex() {
+        search.rebuild();
+        when(contractorRepository.findAll()).thenReturn(List.of(contractor("C1", "Василёк", "RUS", 1, 1, true)));
+
+        search.rebuild();
+
+        assertThat(search.findIds(null)).containsExactly("C1");
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш"))).isEmpty();
+        assertThat(search.findIds(Map.of("contractor_search", "васил"))).containsExactly("C1");
+    }
+
+    @Test
+    @DisplayName("Массовое изменение ниже порога должно применяться порциями без перестроения")
+    void smallBulkChangeShouldBeAppliedIncrementally() {
+        search.rebuild();
+        when(contractorRepository.findAll()).thenReturn(List.of());
+
+        search.onBulkChange(3, chunks -> {
+            chunks.accept(List.of(contractor("A0", "Ромашка импорт", "RUS", 1, 1, true),
+                    contractor("A1", "Ромашка", "RUS", 1, 1, false)));
+            chunks.accept(List.of(contractor("B1", "Лютик импорт", "KAZ", 2, 1, true)));
+        });
+
+        assertThat(search.findIds(Map.of("contractor_search", "ромаш"))).containsExactly("A0", "A2");
+        assertThat(search.findIds(Map.of("countryId", "KAZ"))).containsExactly("A2", "B1");
+        assertThat(search.count(null)).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Массовое изменение выше порога должно перестраивать индекс, не читая изменённые строки")
+    void largeBulkChangeShouldRebuild() {
+        search.rebuild();
+        when(contractorRepository.findAll()).thenReturn(List.of(contractor("C1", "Василёк", "RUS", 1, 1, true)));
+
+        search.onBulkChange(4, chunks -> {
+            throw new AssertionError("changed rows should not be read above the threshold");
+        });
+
+        assertThat(search.findIds(null)).containsExactly("C1");
+    }
+
+    @Test
+    @DisplayName("Короткий запрос, символы шаблона LIKE и неизвестные фильтры должны выполняться через SQL")
+    void unsupportedFiltersShouldNotBeServed() {
+        search.rebuild();
+
+        assertThat(search.canServe(Map.of("contractor_search", "ро"))).isFalse();
+        assertThat(search.canServe(Map.of("contractor_search", "ром%"))).isFalse();
+        assertThat(search.canServe(Map.of("country", "рос_"))).isFalse();
+        assertThat(search.canServe(Map.of("inn", "770"))).isFalse();
+        assertThat(search.canServe(Map.of("contractor_search", "ром", "industry", "1"))).isTrue();
+    }
+
+    private static Contractor contractor(String id, String name, String countryId, int industryId, int orgFormId, boolean active) {
+        Contractor contractor = new Contractor();
+        contractor.setId(id);
+        contractor.setName(name);
+        contractor.setCountryId(countryId);
+        contractor.setIndustryId(industryId);
+        contractor.setOrgFormId(orgFormId);
+        contractor.setIsActive(active);
+        return contractor;
+    }
+
+}
@@ -0,0 +1,86 @@
+package com.example.contractor_service.service.security;
+
+import com.example.contractor_service.model.security.TokenData;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtServiceTest {
+
+    private static final String SECRET = "testSecretKeyForJwtServiceTest1234567890abcdef";
+
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtService, "cacheMaxTtl", Duration.ofMinutes(10));
+        jwtService.init();
+    }
+
+    @Test
+    @DisplayName("Повторный разбор токена должен возвращать проверенные данные из кеша")
+    void repeatedTokenShouldBeServedFromCache() {
+        String token = token(SECRET, Instant.now().plusSeconds(60));
+
+        assertThat(jwtService.isTokenExpired(token)).isFalse();
+        TokenData first = jwtService.parseToken(token);
+        TokenData second = jwtService.parseToken(token);
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.getId()).isEqualTo(42L);
+        assertThat(first.getUsername()).isEqualTo("user");
+        assertThat(first.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("SUPERUSER");
+    }
+
+    @Test
+    @DisplayName("Истёкший токен и токен с чужой подписью должны считаться недействительными")
+    void expiredOrForgedTokenShouldBeRejected() {
+        String expired = token(SECRET, Instant.now().minusSeconds(60));
+        String forged = token(SECRET.replace('t', 'x'), Instant.now().plusSeconds(60));
+
+        assertThat(jwtService.isTokenExpired(expired)).isTrue();
+        assertThat(jwtService.isTokenExpired(forged)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Подписанный токен без ролей должен считаться недействительным, а не приводить к ошибке сервера")
+    void tokenWithoutRolesShouldBeRejected() {
+        String token = Jwts.builder()
+                .claim("userId", 42L)
+                .claim("username", "user")
+                .expiration(Date.from(Instant.now().plusSeconds(60)))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+
+        assertThat(jwtService.isTokenExpired(token)).isTrue();
+        assertThatThrownBy(() -> jwtService.parseToken(token)).isInstanceOf(MalformedJwtException.class);
+    }
+
+    private static String token(String secret, Instant expiration) {
+        return Jwts.builder()
+                .claim("userId", 42L)
+                .claim("username", "user")
+                .claim("roles", List.of("SUPERUSER"))
+                .expiration(Date.from(expiration))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+}